@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rosterSize;
+
+    private SessionMapper sessionMapper;
+
+    private Session session;
+
+    private SessionDto sessionDto;
+
+    @Setup
+    public void setUp() {
+        Teacher teacher = Teacher.builder()
+                .id(1L)
+                .firstName("Margot")
+                .lastName("DELAHAYE")
+                .build();
+
+        Map<Long, User> users = new HashMap<>();
+        List<User> roster = new ArrayList<>(rosterSize);
+        List<Long> rosterIds = new ArrayList<>(rosterSize);
+        for (long id = 1; id <= rosterSize; id++) {
+            User user = new User()
+                    .setId(id)
+                    .setEmail("user" + id + "@studio.com")
+                    .setFirstName("First" + id)
+                    .setLastName("Last" + id)
+                    .setPassword("password");
+            users.put(id, user);
+            roster.add(user);
+            rosterIds.add(id);
+        }
+
+        sessionMapper = new SessionMapperImpl();
+        sessionMapper.teacherService = new TeacherService(null) {
+            @Override
+            public Teacher findById(Long id) {
+                return teacher;
+            }
+        };
+        sessionMapper.userService = new UserService(null) {
+            @Override
+            public User findById(Long id) {
+                return users.get(id);
+            }
+        };
+
+        session = Session.builder()
+                .id(1L)
+                .name("Vinyasa flow")
+                .description("Morning class")
+                .date(new Date())
+                .teacher(teacher)
+                .users(roster)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        sessionDto = sessionMapper.toDto(session);
+    }
+
+    @Benchmark
+    public SessionDto toDto() {
+        return sessionMapper.toDto(session);
+    }
+
+    @Benchmark
+    public Session toEntity() {
+        return sessionMapper.toEntity(sessionDto);
+    }
+}
@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsServiceImplBenchmark {
+
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Setup
+    public void setUp() {
+        User user = new User()
+                .setId(1L)
+                .setEmail("yoga@studio.com")
+                .setFirstName("Yoga")
+                .setLastName("Studio")
+                .setPassword("$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq");
+        // stubOnly: the mock keeps no invocation records, which would otherwise grow with every call.
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByEmail("yoga@studio.com")).thenReturn(Optional.of(user));
+
+        userDetailsService = new UserDetailsServiceImpl(userRepository);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername("yoga@studio.com");
+    }
+}
@@ -0,0 +1,161 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import com.openclassrooms.starterjwt.dto.AttendancePeriodDto;
+import com.openclassrooms.starterjwt.dto.PeriodStatsDto;
+import com.openclassrooms.starterjwt.dto.TeacherStatsDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attendance of archived sessions, aggregated from the month partitions written by
+ * {@link AttendanceExporter}. Only the columns the aggregates need are inflated, and each month's
+ * aggregates are kept until its manifest version changes.
+ */
+@Service
+public class AttendanceAnalytics {
+    static final int MAX_MONTHS = 120;
+
+    private final AttendanceExporter exporter;
+
+    private final Map<YearMonth, Partition> partitions = new ConcurrentHashMap<>();
+
+    public AttendanceAnalytics(AttendanceExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public List<AttendancePeriodDto> findMonthly(YearMonth from, YearMonth to) {
+        List<AttendancePeriodDto> periods = new ArrayList<>();
+        for (Partition partition : partitions(from, to)) {
+            Counts totals = partition.totals;
+            periods.add(new AttendancePeriodDto(partition.month.toString(), totals.sessions, totals.participations,
+                    partition.distinctParticipants, totals.averageAttendance(), totals.fillRate()));
+        }
+        return periods;
+    }
+
+    public List<TeacherStatsDto> findByTeacher(YearMonth from, YearMonth to) {
+        Map<Long, List<PeriodStatsDto>> byTeacher = new TreeMap<>();
+        for (Partition partition : partitions(from, to)) {
+            partition.byTeacher.forEach((teacherId, counts) -> byTeacher
+                    .computeIfAbsent(teacherId, id -> new ArrayList<>())
+                    .add(counts.toDto(partition.month)));
+        }
+
+        List<TeacherStatsDto> stats = new ArrayList<>();
+        byTeacher.forEach((teacherId, teacherPeriods) -> stats.add(new TeacherStatsDto(teacherId, teacherPeriods)));
+        return stats;
+    }
+
+    private List<Partition> partitions(YearMonth from, YearMonth to) {
+        if (from.isAfter(to) || from.plusMonths(MAX_MONTHS).isBefore(to.plusMonths(1))) {
+            throw new BadRequestException();
+        }
+
+        List<Partition> found = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            String version = exporter.exportedVersion(month);
+            if (version == null) {
+                partitions.remove(month);
+                continue;
+            }
+
+            Partition partition = partitions.get(month);
+            if (partition == null || !partition.version.equals(version)) {
+                partition = load(month, version);
+                partitions.put(month, partition);
+            }
+            found.add(partition);
+        }
+        return found;
+    }
+
+    private Partition load(YearMonth month, String version) {
+        long[][] sessions;
+        long[][] participations;
+        try {
+            sessions = ColumnarFile.read(exporter.partition(month).resolve(AttendanceExporter.SESSIONS_FILE),
+                    "teacher_id", "capacity", "participant_count");
+            participations = ColumnarFile.read(
+                    exporter.partition(month).resolve(AttendanceExporter.PARTICIPATIONS_FILE), "user_id");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read attendance of " + month, e);
+        }
+
+        Partition partition = new Partition(month, version);
+        long[] teacherIds = sessions[0];
+        for (int i = 0; i < teacherIds.length; i++) {
+            partition.totals.add(sessions[1][i], sessions[2][i]);
+            if (teacherIds[i] != 0) {
+                partition.byTeacher.computeIfAbsent(teacherIds[i], id -> new Counts()).add(sessions[1][i], sessions[2][i]);
+            }
+        }
+
+        long[] userIds = participations[0];
+        Arrays.sort(userIds);
+        for (int i = 0; i < userIds.length; i++) {
+            if (i == 0 || userIds[i] != userIds[i - 1]) {
+                partition.distinctParticipants++;
+            }
+        }
+        return partition;
+    }
+
+    private static final class Partition {
+        private final YearMonth month;
+
+        private final String version;
+
+        private final Counts totals = new Counts();
+
+        private final Map<Long, Counts> byTeacher = new TreeMap<>();
+
+        private long distinctParticipants;
+
+        private Partition(YearMonth month, String version) {
+            this.month = month;
+            this.version = version;
+        }
+    }
+
+    /** Fill rate only covers sessions with a capacity, as in the live teacher statistics. */
+    private static final class Counts {
+        private long sessions;
+
+        private long participations;
+
+        private long capacity;
+
+        private long bookedSeats;
+
+        private void add(long sessionCapacity, long participants) {
+            sessions++;
+            participations += participants;
+            if (sessionCapacity > 0) {
+                capacity += sessionCapacity;
+                bookedSeats += participants;
+            }
+        }
+
+        private Double averageAttendance() {
+            return sessions == 0 ? null : participations / (double) sessions;
+        }
+
+        private Double fillRate() {
+            return capacity == 0 ? null : bookedSeats / (double) capacity;
+        }
+
+        private PeriodStatsDto toDto(YearMonth month) {
+            return new PeriodStatsDto(month.toString(), sessions, participations, averageAttendance(), fillRate());
+        }
+    }
+}
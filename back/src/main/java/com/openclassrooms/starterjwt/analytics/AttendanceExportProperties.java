@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "oc.app.attendance-export")
+@Data
+public class AttendanceExportProperties {
+    private boolean enabled = false;
+
+    /** Root of the month partitions, one {@code month=yyyy-MM} directory each. */
+    private String directory = "data/attendance";
+}
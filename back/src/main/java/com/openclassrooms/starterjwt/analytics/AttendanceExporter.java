@@ -0,0 +1,209 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Exports SESSIONS_ARCHIVE and PARTICIPATE_ARCHIVE into {@link ColumnarFile}s, one directory per
+ * month of session date, so attendance analytics read local files instead of the OLTP database.
+ * A month is rewritten only when its archived session count or last archive time changed since
+ * the version recorded in its manifest. Manifest versions are read from disk once per export run
+ * and kept in memory in between, so analytics requests do not read a file per month.
+ */
+@Component
+@Log4j2
+public class AttendanceExporter {
+    static final String SESSIONS_FILE = "sessions.col";
+
+    static final String PARTICIPATIONS_FILE = "participations.col";
+
+    static final String MANIFEST_FILE = "_manifest.properties";
+
+    static final String[] SESSION_COLUMNS = {"id", "teacher_id", "date", "capacity", "participant_count"};
+
+    static final String[] PARTICIPATION_COLUMNS = {"session_id", "user_id"};
+
+    private static final String PARTITION_PREFIX = "month=";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AttendanceExportProperties properties;
+
+    // Null until first read; replaced on each export run
+    private volatile Map<YearMonth, String> versions;
+
+    public AttendanceExporter(JdbcTemplate jdbcTemplate, AttendanceExportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(cron = "${oc.app.attendance-export.cron:0 30 4 * * *}")
+    public void exportArchived() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        int exported = exportChangedMonths();
+        log.info("Exported {} attendance months in {} ms", exported, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /** Returns the number of months written. */
+    public int exportChangedMonths() {
+        Map<YearMonth, String> known = readVersions();
+        this.versions = known;
+
+        int[] exported = new int[1];
+        jdbcTemplate.query("SELECT YEAR(date) AS period_year, MONTH(date) AS period_month, COUNT(*) AS sessions,"
+                        + " MAX(archived_at) AS archived_at FROM SESSIONS_ARCHIVE WHERE date IS NOT NULL"
+                        + " GROUP BY YEAR(date), MONTH(date)",
+                rs -> {
+                    YearMonth month = YearMonth.of(rs.getInt("period_year"), rs.getInt("period_month"));
+                    String version = rs.getLong("sessions") + "@" + rs.getTimestamp("archived_at").getTime();
+                    if (!version.equals(known.get(month))) {
+                        exportMonth(month, version);
+                        known.put(month, version);
+                        exported[0]++;
+                    }
+                });
+        return exported[0];
+    }
+
+    Path partition(YearMonth month) {
+        return Paths.get(properties.getDirectory()).resolve(PARTITION_PREFIX + month);
+    }
+
+    /** Version of the month as of the last export run, or null if it was never exported. */
+    String exportedVersion(YearMonth month) {
+        Map<YearMonth, String> current = this.versions;
+        if (current == null) {
+            current = readVersions();
+            this.versions = current;
+        }
+        return current.get(month);
+    }
+
+    private Map<YearMonth, String> readVersions() {
+        Map<YearMonth, String> found = new ConcurrentHashMap<>();
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return found;
+        }
+
+        try (Stream<Path> partitions = Files.list(directory)) {
+            for (Path partition : (Iterable<Path>) partitions::iterator) {
+                String name = partition.getFileName().toString();
+                Path manifest = partition.resolve(MANIFEST_FILE);
+                if (!name.startsWith(PARTITION_PREFIX) || !Files.exists(manifest)) {
+                    continue;
+                }
+                String version = readVersion(manifest);
+                if (version != null) {
+                    found.put(YearMonth.parse(name.substring(PARTITION_PREFIX.length())), version);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return found;
+    }
+
+    private static String readVersion(Path manifest) throws IOException {
+        Properties values = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            values.load(in);
+        }
+        return values.getProperty("version");
+    }
+
+    private void exportMonth(YearMonth month, String version) {
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        // Absent teacher and capacity are stored as 0, which no id or capacity can be.
+        Columns sessions = new Columns(SESSION_COLUMNS.length);
+        jdbcTemplate.query("SELECT id, teacher_id, date, capacity, participant_count FROM SESSIONS_ARCHIVE"
+                        + " WHERE date >= ? AND date < ? ORDER BY id",
+                rs -> {
+                    sessions.add(rs.getLong("id"), rs.getLong("teacher_id"), rs.getTimestamp("date").getTime(),
+                            rs.getLong("capacity"), rs.getLong("participant_count"));
+                }, from, to);
+
+        Columns participations = new Columns(PARTICIPATION_COLUMNS.length);
+        jdbcTemplate.query("SELECT p.session_id, p.user_id FROM PARTICIPATE_ARCHIVE p"
+                        + " JOIN SESSIONS_ARCHIVE s ON s.id = p.session_id"
+                        + " WHERE s.date >= ? AND s.date < ? ORDER BY p.session_id, p.user_id",
+                rs -> {
+                    participations.add(rs.getLong("session_id"), rs.getLong("user_id"));
+                }, from, to);
+
+        Path partition = partition(month);
+        try {
+            Files.createDirectories(partition);
+            ColumnarFile.write(partition.resolve(SESSIONS_FILE), SESSION_COLUMNS, sessions.values, sessions.rows);
+            ColumnarFile.write(partition.resolve(PARTICIPATIONS_FILE), PARTICIPATION_COLUMNS,
+                    participations.values, participations.rows);
+            writeManifest(partition, version, sessions.rows, participations.rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export attendance of " + month, e);
+        }
+    }
+
+    /** Written last: a partition without a manifest, or with an older version, is exported again. */
+    private static void writeManifest(Path partition, String version, int sessions, int participations)
+            throws IOException {
+        Properties manifest = new Properties();
+        manifest.setProperty("version", version);
+        manifest.setProperty("sessions", String.valueOf(sessions));
+        manifest.setProperty("participations", String.valueOf(participations));
+
+        Path tmp = partition.resolve(MANIFEST_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            manifest.store(out, null);
+        }
+        Files.move(tmp, partition.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Growable primitive columns, so a month of rows does not box a Long per value. */
+    private static final class Columns {
+        private long[][] values;
+
+        private int rows;
+
+        private Columns(int count) {
+            this.values = new long[count][1024];
+        }
+
+        private void add(long... row) {
+            if (rows == values[0].length) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], rows * 2);
+                }
+            }
+            for (int i = 0; i < row.length; i++) {
+                values[i][rows] = row[i];
+            }
+            rows++;
+        }
+    }
+}
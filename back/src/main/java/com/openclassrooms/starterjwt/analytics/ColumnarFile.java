@@ -0,0 +1,157 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Minimal column-oriented file of {@code long} columns. Every column is stored as its own deflated
+ * block of zigzag varint deltas, which keeps sorted ids and timestamps down to a byte or two per
+ * value, and the header records each block's length so a reader only inflates the columns it asks
+ * for.
+ *
+ * <pre>
+ * "OCCF" version:byte rows:int columns:short (name:UTF length:int)* block*
+ * </pre>
+ */
+public final class ColumnarFile {
+    private static final int MAGIC = 0x4F434346;
+
+    private static final byte VERSION = 1;
+
+    private ColumnarFile() {
+    }
+
+    /** Writes to a sibling temporary file first, so readers never see a partial file. */
+    public static void write(Path file, String[] names, long[][] columns, int rows) throws IOException {
+        byte[][] blocks = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            blocks[i] = encode(columns[i], rows);
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(rows);
+            out.writeShort(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeInt(blocks[i].length);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Reads the named columns, in the order asked; the other blocks are skipped without being read. */
+    public static long[][] read(Path file, String... names) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (header.readInt() != MAGIC || header.readByte() != VERSION) {
+                throw new IOException("Not a columnar file: " + file);
+            }
+            int rows = header.readInt();
+            int count = header.readShort();
+
+            Map<String, long[]> blocks = new HashMap<>();
+            long offset = 0;
+            String[] columnNames = new String[count];
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                columnNames[i] = header.readUTF();
+                lengths[i] = header.readInt();
+            }
+            long dataStart = channel.position();
+            for (int i = 0; i < count; i++) {
+                // {offset, length} of each block relative to the first one.
+                blocks.put(columnNames[i], new long[]{offset, lengths[i]});
+                offset += lengths[i];
+            }
+
+            long[][] columns = new long[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                long[] block = blocks.get(names[i]);
+                if (block == null) {
+                    throw new IOException("No column " + names[i] + " in " + file);
+                }
+                ByteBuffer bytes = ByteBuffer.allocate((int) block[1]);
+                channel.position(dataStart + block[0]);
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0) {
+                        throw new EOFException("Truncated column " + names[i] + " in " + file);
+                    }
+                }
+                columns[i] = decode(bytes.array(), rows);
+            }
+            return columns;
+        }
+    }
+
+    private static byte[] encode(long[] values, int rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(bytes, deflater, 8192)) {
+            byte[] buffer = new byte[10];
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                long delta = values[i] - previous;
+                previous = values[i];
+                long zigzag = (delta << 1) ^ (delta >> 63);
+                int length = 0;
+                while ((zigzag & ~0x7FL) != 0) {
+                    buffer[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                    zigzag >>>= 7;
+                }
+                buffer[length++] = (byte) zigzag;
+                out.write(buffer, 0, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long[] decode(byte[] block, int rows) throws IOException {
+        long[] values = new long[rows];
+        try (InputStream in = new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(block)), 8192)) {
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                long zigzag = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b = in.read();
+                    if (b < 0) {
+                        throw new EOFException("Column ended after " + i + " of " + rows + " values");
+                    }
+                    zigzag |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                values[i] = previous;
+            }
+        }
+        return values;
+    }
+}
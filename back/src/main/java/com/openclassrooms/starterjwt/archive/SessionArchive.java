@@ -0,0 +1,175 @@
+package com.openclassrooms.starterjwt.archive;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionsArchivedEvent;
+import com.openclassrooms.starterjwt.services.SessionWaitlist;
+import com.openclassrooms.starterjwt.services.TeacherScheduleIndex;
+import com.openclassrooms.starterjwt.services.UserScheduleCache;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finished sessions and their PARTICIPATE rows into SESSIONS_ARCHIVE and PARTICIPATE_ARCHIVE
+ * so the hot tables, their indexes and the eager loads only cover recent classes. Each chunk is one
+ * transaction of {@code INSERT ... SELECT} and {@code DELETE} statements over a locked id list, with
+ * a pause between chunks. To delta sync an archived session is a deleted one, so each chunk also
+ * writes its tombstones.
+ */
+@Component
+@Log4j2
+public class SessionArchive {
+    private static final String SESSION_COLUMNS =
+            "id, name, description, date, teacher_id, capacity, duration, participant_count, created_at, updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SessionArchiveProperties properties;
+
+    private final TeacherScheduleIndex teacherSchedule;
+
+    private final UserScheduleCache userSchedules;
+
+    private final SessionWaitlist waitlist;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SessionArchive(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          SessionArchiveProperties properties,
+                          TeacherScheduleIndex teacherSchedule,
+                          UserScheduleCache userSchedules,
+                          SessionWaitlist waitlist,
+                          ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.teacherSchedule = teacherSchedule;
+        this.userSchedules = userSchedules;
+        this.waitlist = waitlist;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(cron = "${oc.app.archive.cron:0 30 3 * * *}")
+    public void archiveFinished() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(properties.getHorizonDays());
+        long started = System.nanoTime();
+        int archived = archiveBefore(new Date(cutoff));
+        log.info("Archived {} sessions in {} ms", archived, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /** Archives sessions that started before {@code cutoff}, returns how many were moved. */
+    public int archiveBefore(Date cutoff) {
+        int total = 0;
+        for (int chunk = 0; chunk < properties.getMaxChunksPerRun(); chunk++) {
+            List<Long> ids = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+
+            ids.forEach(id -> {
+                teacherSchedule.remove(id);
+                userSchedules.evictSession(id);
+                waitlist.evictSession(id);
+            });
+            eventPublisher.publishEvent(new SessionsArchivedEvent(ids));
+            total += ids.size();
+
+            if (ids.size() < properties.getChunkSize() || !pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /** Archived sessions starting in [{@code from}, {@code to}), in date order and shaped like the live ones. */
+    public List<SessionDto> findBetween(Date from, Date to) {
+        Timestamp start = new Timestamp(from.getTime());
+        Timestamp end = new Timestamp(to.getTime());
+
+        Map<Long, List<Long>> participants = new HashMap<>();
+        jdbcTemplate.query("SELECT p.session_id, p.user_id FROM PARTICIPATE_ARCHIVE p"
+                        + " JOIN SESSIONS_ARCHIVE s ON s.id = p.session_id"
+                        + " WHERE s.date >= ? AND s.date < ? ORDER BY p.session_id, p.user_id",
+                rs -> {
+                    participants.computeIfAbsent(rs.getLong("session_id"), id -> new ArrayList<>())
+                            .add(rs.getLong("user_id"));
+                }, start, end);
+
+        return jdbcTemplate.query("SELECT " + SESSION_COLUMNS + " FROM SESSIONS_ARCHIVE"
+                        + " WHERE date >= ? AND date < ? ORDER BY date, id",
+                (rs, rowNum) -> {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    Timestamp updatedAt = rs.getTimestamp("updated_at");
+                    long id = rs.getLong("id");
+                    return new SessionDto(id, rs.getString("name"), rs.getTimestamp("date"),
+                            (Long) rs.getObject("teacher_id", Long.class), rs.getString("description"),
+                            (Integer) rs.getObject("capacity", Integer.class),
+                            (Integer) rs.getObject("duration", Integer.class), rs.getInt("participant_count"),
+                            participants.getOrDefault(id, Collections.emptyList()),
+                            createdAt == null ? null : createdAt.toLocalDateTime(),
+                            updatedAt == null ? null : updatedAt.toLocalDateTime());
+                }, start, end);
+    }
+
+    private List<Long> archiveChunk(Date cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM SESSIONS WHERE date < ? ORDER BY date, id LIMIT ?",
+                Long.class, new Timestamp(cutoff.getTime()), properties.getChunkSize());
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        // Locking the sessions blocks joins, whose PARTICIPATE insert checks the session row, until the chunk commits.
+        namedJdbcTemplate.queryForList("SELECT id FROM SESSIONS WHERE id IN (:ids) FOR UPDATE", params, Long.class);
+        namedJdbcTemplate.update("INSERT INTO SESSIONS_ARCHIVE (" + SESSION_COLUMNS + ", archived_at)"
+                + " SELECT " + SESSION_COLUMNS + ", :now FROM SESSIONS WHERE id IN (:ids)", params);
+        namedJdbcTemplate.update("INSERT INTO PARTICIPATE_ARCHIVE (session_id, user_id)"
+                + " SELECT session_id, user_id FROM PARTICIPATE WHERE session_id IN (:ids)", params);
+        namedJdbcTemplate.update("INSERT INTO SESSION_DELETIONS (session_id, deleted_at)"
+                + " SELECT id, :now FROM SESSIONS WHERE id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM SESSIONS WHERE id IN (:ids)", params);
+        return ids;
+    }
+
+    private boolean pause() {
+        if (properties.getPauseMs() <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(properties.getPauseMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "oc.app.archive")
+@Data
+public class SessionArchiveProperties {
+    private boolean enabled = false;
+
+    /** Sessions that started more than this many days ago are archived. */
+    private int horizonDays = 365;
+
+    /** Sessions moved per transaction. */
+    private int chunkSize = 500;
+
+    /** Pause between chunks, leaving the database room for regular traffic. */
+    private long pauseMs = 200;
+
+    private int maxChunksPerRun = 1000;
+}
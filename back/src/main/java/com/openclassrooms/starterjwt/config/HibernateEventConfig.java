@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.openclassrooms.starterjwt.services.TeacherChangeListener;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class HibernateEventConfig {
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final TeacherChangeListener teacherChangeListener;
+
+    public HibernateEventConfig(EntityManagerFactory entityManagerFactory,
+                                TeacherChangeListener teacherChangeListener) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.teacherChangeListener = teacherChangeListener;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this.teacherChangeListener);
+        registry.appendListeners(EventType.POST_UPDATE, this.teacherChangeListener);
+        registry.appendListeners(EventType.POST_DELETE, this.teacherChangeListener);
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.analytics.AttendanceAnalytics;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+    private final AttendanceAnalytics attendanceAnalytics;
+    private final UserService userService;
+
+    public AnalyticsController(AttendanceAnalytics attendanceAnalytics, UserService userService) {
+        this.attendanceAnalytics = attendanceAnalytics;
+        this.userService = userService;
+    }
+
+    @GetMapping("/attendance")
+    public ResponseEntity<?> findAttendance(@RequestParam(value = "from", required = false) String from,
+                                            @RequestParam(value = "to", required = false) String to) {
+        try {
+            YearMonth end = to == null ? YearMonth.now() : YearMonth.parse(to);
+            YearMonth start = from == null ? end.minusMonths(23) : YearMonth.parse(from);
+            return ResponseEntity.ok().body(this.attendanceAnalytics.findMonthly(start, end));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/attendance/teachers")
+    public ResponseEntity<?> findTeacherAttendance(@RequestParam(value = "from", required = false) String from,
+                                                   @RequestParam(value = "to", required = false) String to) {
+        Long currentUserId = this.userService.getCurrentUserId();
+        User currentUser = currentUserId == null ? null : this.userService.findById(currentUserId);
+        if (currentUser == null || !currentUser.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            YearMonth end = to == null ? YearMonth.now() : YearMonth.parse(to);
+            YearMonth start = from == null ? end.minusMonths(23) : YearMonth.parse(from);
+            return ResponseEntity.ok().body(this.attendanceAnalytics.findByTeacher(start, end));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
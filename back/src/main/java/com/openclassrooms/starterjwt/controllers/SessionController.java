@@ -1,52 +1,230 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.archive.SessionArchive;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.participation.ParticipationQueue;
+import com.openclassrooms.starterjwt.services.AttendanceReport;
+import com.openclassrooms.starterjwt.services.SeatCountHub;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionSyncService;
+import com.openclassrooms.starterjwt.services.UserService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    private static final int MAX_PARTICIPANTS_PAGE_SIZE = 100;
+    private static final int MAX_CONFLICTS_RANGE_DAYS = 366;
+    private static final int MAX_CALENDAR_RANGE_DAYS = 62;
+    private static final int MAX_ARCHIVE_RANGE_DAYS = 366;
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final UserService userService;
+    private final SessionSyncService sessionSyncService;
+    private final SeatCountHub seatCountHub;
+    private final ParticipationQueue participationQueue;
+    private final SessionArchive sessionArchive;
+    private final AttendanceReport attendanceReport;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             UserService userService,
+                             SessionSyncService sessionSyncService,
+                             SeatCountHub seatCountHub,
+                             ParticipationQueue participationQueue,
+                             SessionArchive sessionArchive,
+                             AttendanceReport attendanceReport) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.userService = userService;
+        this.sessionSyncService = sessionSyncService;
+        this.seatCountHub = seatCountHub;
+        this.participationQueue = participationQueue;
+        this.sessionArchive = sessionArchive;
+        this.attendanceReport = attendanceReport;
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> findChanges(@RequestParam(value = "since", required = false) String since) {
+        return ResponseEntity.ok().body(this.sessionSyncService.findChanges(since));
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<?> findCalendar(@RequestParam(value = "from", required = false) String from,
+                                          @RequestParam(value = "to", required = false) String to) {
+        try {
+            LocalDate start = from == null ? LocalDate.now() : LocalDate.parse(from);
+            LocalDate end = to == null ? start.plusDays(6) : LocalDate.parse(to);
+            if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_CALENDAR_RANGE_DAYS) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionService.findCalendar(start, end));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/conflicts")
+    public ResponseEntity<?> findConflicts(@RequestParam(value = "from", required = false) String from,
+                                           @RequestParam(value = "to", required = false) String to) {
+        try {
+            LocalDate start = from == null ? LocalDate.now() : LocalDate.parse(from);
+            LocalDate end = to == null ? start.plusDays(30) : LocalDate.parse(to);
+            if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_CONFLICTS_RANGE_DAYS) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionService.findTeacherConflicts(startOfDay(start), startOfDay(end.plusDays(1))));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/report.csv")
+    public ResponseEntity<StreamingResponseBody> findReport(@RequestParam(value = "from", required = false) String from,
+                                                            @RequestParam(value = "to", required = false) String to,
+                                                            WebRequest request) {
+        Long currentUserId = this.userService.getCurrentUserId();
+        User currentUser = currentUserId == null ? null : this.userService.findById(currentUserId);
+        if (currentUser == null || !currentUser.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            LocalDate end = to == null ? LocalDate.now() : LocalDate.parse(to);
+            LocalDate start = from == null ? end.minusDays(30) : LocalDate.parse(from);
+            if (end.isBefore(start)) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            StreamingResponseBody body = out -> this.attendanceReport.write(startOfDay(start), startOfDay(end.plusDays(1)), out);
+            // Runs just before the body starts streaming, so only this request gets the longer timeout
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(AttendanceReport.class,
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void beforeConcurrentHandling(NativeWebRequest asyncRequest, Callable<T> task) {
+                            ((AsyncWebRequest) asyncRequest).setTimeout(attendanceReport.getTimeoutMs());
+                        }
+                    });
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"attendance-" + start + "-" + end + ".csv\"")
+                    .body(body);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> findById(@PathVariable("id") String id) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            SessionDto session = this.sessionService.getDtoById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().body(session);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/seats", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeats(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok().body(this.seatCountHub.subscribe(Long.valueOf(id)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/participants")
+    public ResponseEntity<?> findParticipants(@PathVariable("id") String id,
+                                              @RequestParam(value = "after", defaultValue = "0") String after,
+                                              @RequestParam(value = "size", defaultValue = "20") String size) {
+        try {
+            int pageSize = Integer.parseInt(size);
+
+            if (pageSize < 1 || pageSize > MAX_PARTICIPANTS_PAGE_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            return ResponseEntity.ok().body(
+                    this.sessionService.findParticipants(Long.valueOf(id), Long.valueOf(after), pageSize));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(@RequestParam(value = "compact", defaultValue = "false") boolean compact,
+                                     @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
+                                     @RequestParam(value = "archivedFrom", required = false) String archivedFrom,
+                                     @RequestParam(value = "archivedTo", required = false) String archivedTo) {
+        if (compact) {
+            return ResponseEntity.ok().body(this.sessionService.findAllListItems(this.userService.getCurrentUserId()));
+        }
+
+        // Archived sessions span years, so they are only listed for an explicit, bounded range.
+        List<SessionDto> archived = null;
+        if (includeArchived) {
+            if (archivedFrom == null || archivedTo == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            try {
+                LocalDate start = LocalDate.parse(archivedFrom);
+                LocalDate end = LocalDate.parse(archivedTo);
+                if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_ARCHIVE_RANGE_DAYS) {
+                    return ResponseEntity.badRequest().build();
+                }
+                archived = this.sessionArchive.findBetween(startOfDay(start), startOfDay(end.plusDays(1)));
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
         List<Session> sessions = this.sessionService.findAll();
+        List<SessionDto> dtos = this.sessionMapper.toDto(sessions);
+        if (archived != null) {
+            archived.addAll(dtos);
+            dtos = archived;
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        return ResponseEntity.ok().body(dtos);
     }
 
     @PostMapping()
@@ -97,6 +275,17 @@ public class SessionController {
         }
     }
 
+    @PostMapping(value = "{id}/participate/{userId}", headers = "Prefer=respond-async")
+    public DeferredResult<ResponseEntity<?>> participateAsync(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            return this.participationQueue.submit(Long.parseLong(id), Long.parseLong(userId));
+        } catch (NumberFormatException e) {
+            DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+    }
+
     @DeleteMapping("{id}/participate/{userId}")
     public ResponseEntity<?> noLongerParticipate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
@@ -107,4 +296,68 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping("{id}/hold")
+    public ResponseEntity<?> hold(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.hold(Long.parseLong(id), this.userService.getCurrentUserId()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("{id}/hold/{holdId}/confirm")
+    public ResponseEntity<?> confirmHold(@PathVariable("id") String id, @PathVariable("holdId") String holdId) {
+        try {
+            this.sessionService.confirmHold(Long.parseLong(id), holdId, this.userService.getCurrentUserId());
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/hold/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable("id") String id, @PathVariable("holdId") String holdId) {
+        try {
+            this.sessionService.releaseHold(Long.parseLong(id), holdId, this.userService.getCurrentUserId());
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> joinWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.joinWaitlist(Long.parseLong(id), Long.parseLong(userId)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> findWaitlistPosition(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.findWaitlistPosition(Long.parseLong(id), Long.parseLong(userId)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            this.sessionService.leaveWaitlist(Long.parseLong(id), Long.parseLong(userId));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
 }
@@ -2,10 +2,16 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherListCache;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.TeacherStatsService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -13,12 +19,18 @@ import java.util.List;
 public class TeacherController {
     private final TeacherMapper teacherMapper;
     private final TeacherService teacherService;
+    private final TeacherListCache teacherListCache;
+    private final TeacherStatsService teacherStatsService;
 
 
     public TeacherController(TeacherService teacherService,
-                             TeacherMapper teacherMapper) {
+                             TeacherMapper teacherMapper,
+                             TeacherListCache teacherListCache,
+                             TeacherStatsService teacherStatsService) {
         this.teacherMapper = teacherMapper;
         this.teacherService = teacherService;
+        this.teacherListCache = teacherListCache;
+        this.teacherStatsService = teacherStatsService;
     }
 
     @GetMapping("/{id}")
@@ -37,9 +49,61 @@ public class TeacherController {
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Teacher> teachers = this.teacherService.findAll();
+    public ResponseEntity<?> findAll(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        TeacherListCache.Body body = this.teacherListCache.get();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.getEtag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+        }
+        return response.body(body.getJson());
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<?> findStats(@PathVariable("id") String id,
+                                       @RequestParam(value = "from", required = false) String from,
+                                       @RequestParam(value = "to", required = false) String to) {
+        try {
+            Teacher teacher = this.teacherService.findById(Long.valueOf(id));
+
+            if (teacher == null) {
+                return ResponseEntity.notFound().build();
+            }
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+            YearMonth end = to == null ? YearMonth.now() : YearMonth.parse(to);
+            YearMonth start = from == null ? end.minusMonths(11) : YearMonth.parse(from);
+            return ResponseEntity.ok().body(this.teacherStatsService.findByTeacher(teacher.getId(), start, end));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> findAllStats(@RequestParam(value = "from", required = false) String from,
+                                          @RequestParam(value = "to", required = false) String to) {
+        try {
+            YearMonth end = to == null ? YearMonth.now() : YearMonth.parse(to);
+            YearMonth start = from == null ? end.minusMonths(11) : YearMonth.parse(from);
+            return ResponseEntity.ok().body(this.teacherStatsService.findAll(start, end));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
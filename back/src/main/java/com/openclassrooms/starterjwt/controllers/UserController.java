@@ -2,7 +2,10 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,12 +21,15 @@ import java.util.Objects;
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionService = sessionService;
     }
 
     @GetMapping("/{id}")
@@ -41,6 +47,48 @@ public class UserController {
         }
     }
 
+    @GetMapping("/me/sessions")
+    public ResponseEntity<?> findMySessions(@RequestParam(value = "period", defaultValue = "upcoming") String period,
+                                            @PageableDefault(size = 20) Pageable pageable) {
+        Long userId = this.userService.getCurrentUserId();
+
+        if (userId == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return this.findSessions(userId, period, pageable);
+    }
+
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "period", defaultValue = "upcoming") String period,
+                                          @PageableDefault(size = 20) Pageable pageable) {
+        try {
+            Long userId = Long.valueOf(id);
+            Long currentUserId = this.userService.getCurrentUserId();
+
+            // Only the user and admins may see whom a user trains with.
+            if (!userId.equals(currentUserId)) {
+                User currentUser = currentUserId == null ? null : this.userService.findById(currentUserId);
+                if (currentUser == null || !currentUser.isAdmin()) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+            }
+
+            return this.findSessions(userId, period, pageable);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<?> findSessions(Long userId, String period, Pageable pageable) {
+        if (!"upcoming".equals(period) && !"past".equals(period)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok().body(this.sessionService.findByParticipant(userId, "upcoming".equals(period), pageable));
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
@@ -0,0 +1,260 @@
+package com.openclassrooms.starterjwt.datagen;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+@Component
+@Profile("datagen")
+@Log4j2
+public class DataGenerator implements CommandLineRunner {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataGeneratorProperties properties;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ConfigurableApplicationContext context;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         DataGeneratorProperties properties,
+                         PasswordEncoder passwordEncoder,
+                         ConfigurableApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.passwordEncoder = passwordEncoder;
+        this.context = context;
+    }
+
+    /** Generates, then exits: the scheduler threads would otherwise keep the JVM running. */
+    @Override
+    public void run(String... args) {
+        generate();
+        System.exit(SpringApplication.exit(context));
+    }
+
+    public Result generate() {
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        Result result = new Result(nextId("TEACHERS"), nextId("USERS"), nextId("SESSIONS"));
+        long start = System.currentTimeMillis();
+
+        insertTeachers(result.getTeacherBase(), random.split());
+        insertUsers(result.getUserBase(), random.split());
+        insertSessions(result, random.split());
+        result.participations = insertParticipations(result, random.split());
+        countParticipants(result.getSessionBase());
+
+        log.info("Generated {} teachers, {} users, {} sessions and {} participations in {} ms (seed {})",
+                properties.getTeachers(), properties.getUsers(), properties.getSessions(),
+                result.getParticipations(), System.currentTimeMillis() - start, properties.getSeed());
+        return result;
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private void insertTeachers(long base, SplittableRandom random) {
+        Timestamp createdAt = Timestamp.valueOf(properties.getFrom().atStartOfDay());
+        BatchInserter inserter = new BatchInserter("TEACHERS",
+                "id, first_name, last_name, created_at, updated_at");
+        for (int i = 0; i < properties.getTeachers(); i++) {
+            inserter.add(base + i, "Teacher" + i, "GEN" + random.nextInt(1000), createdAt, createdAt);
+        }
+        inserter.flush();
+    }
+
+    private void insertUsers(long base, SplittableRandom random) {
+        String password = passwordEncoder.encode(properties.getPassword());
+        BatchInserter inserter = new BatchInserter("USERS",
+                "id, email, first_name, last_name, admin, password, created_at, updated_at");
+        for (int i = 0; i < properties.getUsers(); i++) {
+            long id = base + i;
+            Timestamp createdAt = timestampInRange(random);
+            inserter.add(id, "user" + id + "@datagen.studio.com", "User" + i, "GEN", false, password,
+                    createdAt, createdAt);
+        }
+        inserter.flush();
+    }
+
+    private void insertSessions(Result result, SplittableRandom random) {
+        BatchInserter inserter = new BatchInserter("SESSIONS",
+                "id, name, description, date, teacher_id, created_at, updated_at");
+        for (int i = 0; i < properties.getSessions(); i++) {
+            Timestamp date = timestampInRange(random);
+            long teacherId = result.getTeacherBase() + random.nextInt(Math.max(1, properties.getTeachers()));
+            inserter.add(result.getSessionBase() + i, "Session " + i, "Generated session " + i, date,
+                    teacherId, date, date);
+        }
+        inserter.flush();
+    }
+
+    private long insertParticipations(Result result, SplittableRandom random) {
+        int sessions = properties.getSessions();
+        int users = properties.getUsers();
+        if (sessions == 0 || users == 0) {
+            return 0;
+        }
+
+        // Zipf-like popularity: the session at rank r gets a share proportional to 1 / r^skew
+        double[] weights = new double[sessions];
+        double total = 0;
+        for (int rank = 0; rank < sessions; rank++) {
+            weights[rank] = 1.0 / Math.pow(rank + 1, properties.getSkew());
+            total += weights[rank];
+        }
+        int[] order = shuffledIndexes(sessions, random);
+
+        BatchInserter inserter = new BatchInserter("PARTICIPATE", "user_id, session_id");
+        long inserted = 0;
+        long remaining = properties.getParticipations();
+        double remainingWeight = total;
+        for (int rank = 0; rank < sessions; rank++) {
+            long sessionId = result.getSessionBase() + order[rank];
+            // A session cannot hold more than every user, what it cannot take goes to the less popular ones
+            int attendees = (int) Math.min(users, Math.round(remaining * weights[rank] / remainingWeight));
+            remaining -= attendees;
+            remainingWeight -= weights[rank];
+
+            // Walking the users with a stride coprime to their count visits distinct users without a lookup set
+            long offset = random.nextInt(users);
+            long stride = coprimeStride(users, random);
+            for (int j = 0; j < attendees; j++) {
+                long userId = result.getUserBase() + (offset + j * stride) % users;
+                inserter.add(userId, sessionId);
+            }
+            inserted += attendees;
+        }
+        inserter.flush();
+        return inserted;
+    }
+
+    private void countParticipants(long sessionBase) {
+        jdbcTemplate.update("UPDATE SESSIONS s SET participant_count ="
+                + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id) WHERE s.id >= ?", sessionBase);
+    }
+
+    private Timestamp timestampInRange(SplittableRandom random) {
+        LocalDateTime from = properties.getFrom().atTime(7, 0);
+        long minutes = random.nextLong((long) Math.max(1, properties.getDays()) * 24 * 60);
+        return Timestamp.valueOf(from.plusMinutes(minutes - minutes % 15));
+    }
+
+    private static int[] shuffledIndexes(int size, SplittableRandom random) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = tmp;
+        }
+        return indexes;
+    }
+
+    private static long coprimeStride(int size, SplittableRandom random) {
+        if (size == 1) {
+            return 1;
+        }
+        long stride;
+        do {
+            stride = 1 + random.nextInt(size - 1);
+        } while (gcd(stride, size) != 1);
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private class BatchInserter {
+        private final String insertPrefix;
+
+        private final int columns;
+
+        private final List<Object> values = new ArrayList<>();
+
+        private String fullBatchSql;
+
+        private int rows;
+
+        BatchInserter(String table, String columnList) {
+            this.insertPrefix = "INSERT INTO " + table + " (" + columnList + ") VALUES ";
+            this.columns = columnList.split(",").length;
+        }
+
+        void add(Object... row) {
+            for (Object value : row) {
+                values.add(value);
+            }
+            rows++;
+            if (rows == properties.getBatchSize()) {
+                if (fullBatchSql == null) {
+                    fullBatchSql = sql(rows);
+                }
+                execute(fullBatchSql);
+            }
+        }
+
+        void flush() {
+            if (rows > 0) {
+                execute(sql(rows));
+            }
+        }
+
+        private void execute(String sql) {
+            jdbcTemplate.update(sql, values.toArray());
+            values.clear();
+            rows = 0;
+        }
+
+        private String sql(int rowCount) {
+            StringBuilder row = new StringBuilder("(");
+            for (int i = 0; i < columns; i++) {
+                row.append(i == 0 ? "?" : ", ?");
+            }
+            row.append(")");
+
+            StringBuilder sql = new StringBuilder(insertPrefix);
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(row);
+            }
+            return sql.toString();
+        }
+    }
+
+    @Getter
+    public static class Result {
+        private final long teacherBase;
+
+        private final long userBase;
+
+        private final long sessionBase;
+
+        private long participations;
+
+        Result(long teacherBase, long userBase, long sessionBase) {
+            this.teacherBase = teacherBase;
+            this.userBase = userBase;
+            this.sessionBase = sessionBase;
+        }
+    }
+}
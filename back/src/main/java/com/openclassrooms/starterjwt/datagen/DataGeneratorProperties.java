@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.datagen;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@ConfigurationProperties(prefix = "oc.datagen")
+@Data
+public class DataGeneratorProperties {
+    private long seed = 42L;
+
+    private int teachers = 200;
+
+    private int users = 1_000_000;
+
+    private int sessions = 100_000;
+
+    private long participations = 20_000_000L;
+
+    private double skew = 1.1;
+
+    private int batchSize = 1_000;
+
+    private LocalDate from = LocalDate.of(2023, 1, 1);
+
+    private int days = 730;
+
+    private String password = "test!1234";
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendancePeriodDto {
+    private String period;
+
+    private long sessions;
+
+    private long participations;
+
+    private long distinctParticipants;
+
+    private Double averageAttendance;
+
+    private Double fillRate;
+}
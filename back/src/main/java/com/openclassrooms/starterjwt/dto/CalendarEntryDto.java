@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarEntryDto {
+    private Long id;
+
+    private String name;
+
+    private Date date;
+
+    private Integer duration;
+
+    private Long teacher_id;
+}
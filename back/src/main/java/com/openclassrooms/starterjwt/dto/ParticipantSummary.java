@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.dto;
+
+public interface ParticipantSummary {
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+}
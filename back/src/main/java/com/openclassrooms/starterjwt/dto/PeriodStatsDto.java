@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodStatsDto {
+    private String period;
+
+    private long sessions;
+
+    private long participations;
+
+    private Double averageAttendance;
+
+    private Double fillRate;
+}
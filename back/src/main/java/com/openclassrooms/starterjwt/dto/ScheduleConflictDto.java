@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleConflictDto {
+    private Long teacherId;
+
+    private Long sessionId;
+
+    private Long conflictingSessionId;
+
+    /** Start of the time both sessions share. */
+    private Date overlapStart;
+
+    private Date overlapEnd;
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldDto {
+    private String holdId;
+
+    private Long sessionId;
+
+    private Long userId;
+
+    private LocalDateTime expiresAt;
+}
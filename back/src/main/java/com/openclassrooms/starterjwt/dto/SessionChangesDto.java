@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionChangesDto {
+    private List<SessionDto> sessions;
+
+    private List<Long> deleted;
+
+    private String token;
+
+    private boolean reset;
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+public interface SessionListItem {
+    Long getId();
+
+    String getName();
+
+    Date getDate();
+
+    String getDescription();
+
+    @JsonProperty("teacher_id")
+    Long getTeacherId();
+
+    Long getParticipantCount();
+
+    @JsonIgnore
+    Long getOwnParticipation();
+
+    @JsonProperty("isParticipating")
+    default boolean isParticipating() {
+        return getOwnParticipation() != null && getOwnParticipation() > 0;
+    }
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,7 @@
+package com.openclassrooms.starterjwt.dto;
+
+public interface SessionSeats {
+    Integer getCapacity();
+
+    int getParticipantCount();
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.dto;
+
+import java.util.Date;
+
+public interface SessionSlot {
+    Long getId();
+
+    Long getTeacherId();
+
+    Date getDate();
+
+    Integer getDuration();
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.dto;
+
+public interface TeacherMonthlyStats {
+    Long getTeacherId();
+
+    Integer getPeriodYear();
+
+    Integer getPeriodMonth();
+
+    Long getSessionCount();
+
+    Long getParticipations();
+
+    /** Summed over sessions that have a capacity; null when none of them does. */
+    Long getCapacity();
+
+    /** Participations in sessions that have a capacity, i.e. the numerator of the fill rate. */
+    Long getBookedSeats();
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ParticipantLeftEvent {
+    private Long sessionId;
+
+    private Long userId;
+}
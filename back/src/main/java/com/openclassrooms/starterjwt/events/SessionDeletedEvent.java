@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionDeletedEvent {
+    private Long sessionId;
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionSavedEvent {
+    private Session session;
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SessionsArchivedEvent {
+    private List<Long> sessionIds;
+}
@@ -0,0 +1,272 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Replays the stored response of a retried POST carrying an {@code Idempotency-Key}, so the
+ * controller and services run once per key. Keys are scoped to the authenticated user; reusing
+ * one for a different request is rejected with 422 and a retry racing the original gets 409.
+ * A request that goes async, such as a {@code Prefer: respond-async} join, is stored and written
+ * out by the filter again on its async dispatch, once the deferred result is in the buffer.
+ */
+@Component
+@Log4j2
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String SCOPED_KEY_ATTRIBUTE = IdempotencyFilter.class.getName() + ".scopedKey";
+
+    private static final List<String> IDEMPOTENT_PATHS = Arrays.asList(
+            "/api/session",
+            "/api/session/{id}/participate/{userId}");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final IdempotencyStore store;
+
+    private final IdempotencyProperties properties;
+
+    private final Counter replayed;
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.replayed = meterRegistry.counter("idempotency.replayed");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return IDEMPOTENT_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            resumeAsync(request, response, filterChain);
+            return;
+        }
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String scopedKey = owner() + ":" + key;
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + " " + digest(body);
+
+        Optional<IdempotentResponse> existing = store.find(scopedKey);
+        if (existing.isPresent()) {
+            replay(existing.get(), fingerprint, response);
+            return;
+        }
+        if (!store.reserve(scopedKey, fingerprint, Instant.now().plus(properties.getLease()))) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+        } catch (ServletException | IOException | RuntimeException e) {
+            abort(scopedKey, cachingResponse);
+            throw e;
+        }
+
+        if (isAsyncStarted(request)) {
+            // The async context holds on to cachingResponse, which the async dispatch writes into.
+            request.setAttribute(SCOPED_KEY_ATTRIBUTE, scopedKey);
+        } else {
+            finish(scopedKey, cachingResponse);
+        }
+    }
+
+    private void resumeAsync(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String scopedKey = (String) request.getAttribute(SCOPED_KEY_ATTRIBUTE);
+        ContentCachingResponseWrapper cachingResponse =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (scopedKey == null || cachingResponse == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            abort(scopedKey, cachingResponse);
+            throw e;
+        }
+
+        if (!isAsyncStarted(request)) {
+            finish(scopedKey, cachingResponse);
+        }
+    }
+
+    /** Stores the buffered response unless it is a server error, then sends it to the client. */
+    private void finish(String scopedKey, ContentCachingResponseWrapper cachingResponse) throws IOException {
+        if (cachingResponse.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            abort(scopedKey, cachingResponse);
+            return;
+        }
+
+        try {
+            store.complete(scopedKey, cachingResponse.getStatus(), cachingResponse.getContentType(),
+                    cachingResponse.getContentAsByteArray(), Instant.now().plus(properties.getTtl()));
+        } catch (RuntimeException e) {
+            store.release(scopedKey);
+            throw e;
+        } finally {
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private void abort(String scopedKey, ContentCachingResponseWrapper cachingResponse) throws IOException {
+        try {
+            store.release(scopedKey);
+        } finally {
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.idempotency.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        int evicted = store.evictExpired(Instant.now());
+        if (evicted > 0) {
+            log.debug("Evicted {} expired idempotency keys", evicted);
+        }
+    }
+
+    private void replay(IdempotentResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            return;
+        }
+        if (!stored.isCompleted()) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+
+        replayed.increment();
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getBody() != null && stored.getBody().length > 0) {
+            response.setContentLength(stored.getBody().length);
+            response.getOutputStream().write(stored.getBody());
+        }
+    }
+
+    private String owner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String digest(byte[] body) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /** The whole body is already in memory, so it is available, and then read, right away. */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "oc.app.idempotency")
+@Data
+public class IdempotencyProperties {
+    private String store = "memory";
+
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long a key is held while its request runs. A node that dies before storing the response
+     * only blocks retries of the key this long, not for the whole {@link #ttl}.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyStore {
+    /**
+     * Returns the unexpired entry of a key, either completed or still in progress.
+     */
+    Optional<IdempotentResponse> find(String key);
+
+    /**
+     * Claims a key for a request until {@code expiresAt}; returns false when another request already holds it.
+     */
+    boolean reserve(String key, String fingerprint, Instant expiresAt);
+
+    /**
+     * Stores the response of a reserved key and keeps it until {@code expiresAt}.
+     */
+    void complete(String key, int status, String contentType, byte[] body, Instant expiresAt);
+
+    void release(String key);
+
+    int evictExpired(Instant now);
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentResponse {
+    private String fingerprint;
+
+    private Integer status;
+
+    private String contentType;
+
+    private byte[] body;
+
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(prefix = "oc.app.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private final Map<String, IdempotentResponse> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<IdempotentResponse> find(String key) {
+        IdempotentResponse entry = entries.get(key);
+        if (entry == null || entry.getExpiresAt().isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    @Override
+    public boolean reserve(String key, String fingerprint, Instant expiresAt) {
+        IdempotentResponse reserved = new IdempotentResponse(fingerprint, null, null, null, expiresAt);
+        Instant now = Instant.now();
+
+        IdempotentResponse current = entries.compute(key, (k, existing) ->
+                existing == null || existing.getExpiresAt().isBefore(now) ? reserved : existing);
+        return current == reserved;
+    }
+
+    @Override
+    public void complete(String key, int status, String contentType, byte[] body, Instant expiresAt) {
+        entries.computeIfPresent(key, (k, entry) ->
+                new IdempotentResponse(entry.getFingerprint(), status, contentType, body, expiresAt));
+    }
+
+    @Override
+    public void release(String key) {
+        entries.computeIfPresent(key, (k, entry) -> entry.isCompleted() ? entry : null);
+    }
+
+    @Override
+    public int evictExpired(Instant now) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.getExpiresAt().isBefore(now));
+        return before - entries.size();
+    }
+}
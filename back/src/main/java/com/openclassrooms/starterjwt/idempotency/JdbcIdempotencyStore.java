@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(prefix = "oc.app.idempotency", name = "store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> find(String key) {
+        List<IdempotentResponse> entries = jdbcTemplate.query(
+                "SELECT fingerprint, status, content_type, body, expires_at FROM IDEMPOTENCY_KEYS"
+                        + " WHERE idem_key = ? AND expires_at >= ?",
+                (rs, rowNum) -> new IdempotentResponse(
+                        rs.getString("fingerprint"),
+                        (Integer) rs.getObject("status", Integer.class),
+                        rs.getString("content_type"),
+                        rs.getBytes("body"),
+                        rs.getTimestamp("expires_at").toInstant()),
+                key, Timestamp.from(Instant.now()));
+        return entries.stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(String key, String fingerprint, Instant expiresAt) {
+        jdbcTemplate.update("DELETE FROM IDEMPOTENCY_KEYS WHERE idem_key = ? AND expires_at < ?",
+                key, Timestamp.from(Instant.now()));
+        try {
+            jdbcTemplate.update("INSERT INTO IDEMPOTENCY_KEYS (idem_key, fingerprint, expires_at) VALUES (?, ?, ?)",
+                    key, fingerprint, Timestamp.from(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void complete(String key, int status, String contentType, byte[] body, Instant expiresAt) {
+        jdbcTemplate.update("UPDATE IDEMPOTENCY_KEYS SET status = ?, content_type = ?, body = ?, expires_at = ?"
+                        + " WHERE idem_key = ?",
+                status, contentType, body, Timestamp.from(expiresAt), key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM IDEMPOTENCY_KEYS WHERE idem_key = ? AND status IS NULL", key);
+    }
+
+    @Override
+    public int evictExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM IDEMPOTENCY_KEYS WHERE expires_at < ?", Timestamp.from(now));
+    }
+}
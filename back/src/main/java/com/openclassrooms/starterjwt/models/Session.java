@@ -8,6 +8,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -26,6 +28,8 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    public static final int DEFAULT_DURATION_MINUTES = 60;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,6 +45,18 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    /** Minutes; sessions without one are assumed to last {@value Session#DEFAULT_DURATION_MINUTES}. */
+    @Min(1)
+    @Max(1440)
+    private Integer duration;
+
+    /** Size of {@link #users}: set on insert, then only changed by SQL in the participation transactions. */
+    @Column(name = "participant_count", updatable = false)
+    private int participantCount;
+
     @OneToOne
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
@@ -59,4 +75,9 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    void countParticipants() {
+        this.participantCount = this.users == null ? 0 : this.users.size();
+    }
 }
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SESSION_DELETIONS")
+@Data
+@EqualsAndHashCode(of = {"sessionId"})
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionDeletion {
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @NotNull
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+}
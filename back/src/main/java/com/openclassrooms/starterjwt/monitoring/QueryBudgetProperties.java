@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "oc.app.query-budget")
+@Data
+public class QueryBudgetProperties {
+    private Integer defaultLimit;
+
+    private Map<String, Map<String, Integer>> endpoints = new HashMap<>();
+
+    private boolean failOnExceed = false;
+
+    public Integer limitFor(String method, String pattern) {
+        Map<String, Integer> byPattern = endpoints.getOrDefault(method.toLowerCase(Locale.ROOT), Collections.emptyMap());
+        if (pattern != null && byPattern.containsKey(pattern)) {
+            return byPattern.get(pattern);
+        }
+        return defaultLimit;
+    }
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.starterjwt.monitoring;
+
+import com.openclassrooms.starterjwt.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Log4j2
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    public static final String STATEMENTS_METRIC = "http.server.requests.statements";
+
+    private final QueryBudgetProperties queryBudgetProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountFilter(QueryBudgetProperties queryBudgetProperties, MeterRegistry meterRegistry) {
+        this.queryBudgetProperties = queryBudgetProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountHolder.clear();
+        long start = System.nanoTime();
+        ServerTimingResponseWrapper wrapper = new ServerTimingResponseWrapper(response, start);
+
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            completed = true;
+        } finally {
+            QueryCount queryCount = QueryCountHolder.getGrandTotal();
+            QueryCountHolder.clear();
+
+            if (!request.isAsyncStarted()) {
+                wrapper.writeServerTiming(queryCount);
+            }
+            // A failed request already carries its own exception, which the budget must not replace.
+            if (completed) {
+                checkBudget(request, queryCount, start);
+            }
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, QueryCount queryCount, long start) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        log.debug("{} -> {} statements ({} select, {} insert, {} update, {} delete), {} ms JDBC, {} ms total",
+                endpoint, queryCount.getTotal(), queryCount.getSelect(), queryCount.getInsert(),
+                queryCount.getUpdate(), queryCount.getDelete(), queryCount.getTime(), elapsedMs);
+        // Tagged by pattern only, raw URIs would give every session id a series of its own.
+        DistributionSummary.builder(STATEMENTS_METRIC)
+                .description("JDBC statements run per request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern : "UNKNOWN")
+                .register(this.meterRegistry)
+                .record(queryCount.getTotal());
+
+        Integer limit = this.queryBudgetProperties.limitFor(request.getMethod(), pattern);
+        if (limit == null || queryCount.getTotal() <= limit) {
+            return;
+        }
+
+        String message = String.format("%s ran %d statements, over its budget of %d",
+                endpoint, queryCount.getTotal(), limit);
+        if (this.queryBudgetProperties.isFailOnExceed()) {
+            throw new QueryBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    static String serverTiming(QueryCount queryCount, long start) {
+        double totalMs = (System.nanoTime() - start) / 1_000_000.0;
+        return String.format(Locale.ROOT, "db;dur=%d;desc=\"%d statements\", total;dur=%.1f",
+                queryCount.getTime(), queryCount.getTotal(), totalMs);
+    }
+
+    private static class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+        private final long start;
+
+        private boolean written;
+
+        ServerTimingResponseWrapper(HttpServletResponse response, long start) {
+            super(response);
+            this.start = start;
+        }
+
+        void writeServerTiming(QueryCount queryCount) {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(SERVER_TIMING_HEADER, serverTiming(queryCount, start));
+            }
+        }
+
+        private void beforeCommit() {
+            writeServerTiming(QueryCountHolder.getGrandTotal());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeCommit();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeCommit();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeCommit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            beforeCommit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            beforeCommit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            beforeCommit();
+            super.sendRedirect(location);
+        }
+    }
+}
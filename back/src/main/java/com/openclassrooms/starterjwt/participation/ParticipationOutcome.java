@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.participation;
+
+import org.springframework.http.HttpStatus;
+
+public enum ParticipationOutcome {
+    ACCEPTED(HttpStatus.OK),
+    DUPLICATE(HttpStatus.BAD_REQUEST),
+    FULL(HttpStatus.BAD_REQUEST),
+    SCHEDULE_CONFLICT(HttpStatus.BAD_REQUEST),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND),
+    SESSION_NOT_FOUND(HttpStatus.NOT_FOUND);
+
+    private final HttpStatus status;
+
+    ParticipationOutcome(HttpStatus status) {
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,172 @@
+package com.openclassrooms.starterjwt.participation;
+
+import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind path for participate. Intents are queued per session and a single writer per
+ * session applies them in batches through {@link SessionService#participateAll}, one transaction
+ * per batch. A full queue answers 503 straight away instead of letting callers pile up. A lane
+ * only lives while its session has intents waiting or being written.
+ */
+@Component
+@Log4j2
+public class ParticipationQueue {
+    private final SessionService sessionService;
+
+    private final ParticipationQueueProperties properties;
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final ExecutorService writers;
+
+    private final Counter rejected;
+
+    private final DistributionSummary batchSizes;
+
+    public ParticipationQueue(SessionService sessionService,
+                              ParticipationQueueProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.sessionService = sessionService;
+        this.properties = properties;
+        this.writers = Executors.newFixedThreadPool(properties.getWriterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "participation-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rejected = meterRegistry.counter("participation.queue.rejected");
+        this.batchSizes = DistributionSummary.builder("participation.queue.batch.size").register(meterRegistry);
+        meterRegistry.gauge("participation.queue.depth", this.lanes,
+                map -> map.values().stream().mapToInt(lane -> lane.intents.size()).sum());
+    }
+
+    public DeferredResult<ResponseEntity<?>> submit(Long sessionId, Long userId) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(properties.getTimeoutMs(), unavailable());
+
+        if (!properties.isEnabled()) {
+            ParticipationOutcome outcome = this.sessionService
+                    .participateAll(sessionId, Collections.singletonList(userId)).get(0);
+            result.setResult(ResponseEntity.status(outcome.getStatus()).build());
+            return result;
+        }
+
+        // Offered inside compute so a lane is never dropped between being found and being offered to.
+        Intent intent = new Intent(userId, result);
+        boolean[] accepted = new boolean[1];
+        Lane lane = this.lanes.compute(sessionId, (id, existing) -> {
+            Lane found = existing != null ? existing : new Lane(id);
+            accepted[0] = found.intents.offer(intent);
+            return found;
+        });
+        if (!accepted[0]) {
+            this.rejected.increment();
+            result.setResult(unavailable());
+            return result;
+        }
+        lane.scheduleDrain();
+        return result;
+    }
+
+    int activeLanes() {
+        return this.lanes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.writers.shutdown();
+    }
+
+    private static ResponseEntity<?> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    private static final class Intent {
+        private final Long userId;
+
+        private final DeferredResult<ResponseEntity<?>> result;
+
+        private Intent(Long userId, DeferredResult<ResponseEntity<?>> result) {
+            this.userId = userId;
+            this.result = result;
+        }
+    }
+
+    private final class Lane {
+        private final Long sessionId;
+
+        private final BlockingQueue<Intent> intents = new LinkedBlockingQueue<>(properties.getCapacity());
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Lane(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        private void scheduleDrain() {
+            if (this.draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Intent> batch = new ArrayList<>(properties.getBatchSize());
+                while (this.intents.drainTo(batch, properties.getBatchSize()) > 0) {
+                    write(batch);
+                    batch.clear();
+                }
+            } finally {
+                this.draining.set(false);
+            }
+
+            lanes.computeIfPresent(this.sessionId,
+                    (id, lane) -> lane == this && this.intents.isEmpty() && !this.draining.get() ? null : lane);
+            if (!this.intents.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void write(List<Intent> batch) {
+            // A caller that timed out was already told to retry, committing its intent now would
+            // turn that retry into a duplicate.
+            batch.removeIf(intent -> intent.result.isSetOrExpired());
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchSizes.record(batch.size());
+
+            List<Long> userIds = new ArrayList<>(batch.size());
+            batch.forEach(intent -> userIds.add(intent.userId));
+
+            try {
+                List<ParticipationOutcome> outcomes = sessionService.participateAll(this.sessionId, userIds);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result.setResult(ResponseEntity.status(outcomes.get(i).getStatus()).build());
+                }
+            } catch (RuntimeException e) {
+                log.error("Participation batch of session {} failed", this.sessionId, e);
+                batch.forEach(intent -> intent.result.setErrorResult(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.participation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "oc.app.participation-queue")
+@Data
+public class ParticipationQueueProperties {
+    private boolean enabled = false;
+
+    private int capacity = 1024;
+
+    private int batchSize = 128;
+
+    private int writerThreads = 2;
+
+    private long timeoutMs = 5000;
+}
@@ -1,9 +1,125 @@
 package com.openclassrooms.starterjwt.repository;
 
+import com.openclassrooms.starterjwt.dto.CalendarEntryDto;
+import com.openclassrooms.starterjwt.dto.ParticipantSummary;
+import com.openclassrooms.starterjwt.dto.SessionListItem;
+import com.openclassrooms.starterjwt.dto.SessionSeats;
+import com.openclassrooms.starterjwt.dto.SessionSlot;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId"
+            + " FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId AND s.date >= :now ORDER BY s.date ASC, s.id ASC",
+            countQuery = "SELECT COUNT(*) FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+                    + " WHERE p.user_id = :userId AND s.date >= :now",
+            nativeQuery = true)
+    Page<SessionSummary> findUpcomingByParticipant(@Param("userId") Long userId, @Param("now") Date now,
+                                                   Pageable pageable);
+
+    /** Past sessions include the archived ones, which have all left SESSIONS and PARTICIPATE. */
+    @Query(value = "SELECT x.id AS id, x.name AS name, x.date AS date, x.description AS description,"
+            + " x.teacher_id AS teacherId FROM ("
+            + "SELECT s.id, s.name, s.date, s.description, s.teacher_id"
+            + " FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId AND s.date < :now"
+            + " UNION ALL SELECT s.id, s.name, s.date, s.description, s.teacher_id"
+            + " FROM PARTICIPATE_ARCHIVE p JOIN SESSIONS_ARCHIVE s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId AND s.date < :now"
+            + ") x ORDER BY x.date DESC, x.id DESC",
+            countQuery = "SELECT (SELECT COUNT(*) FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+                    + " WHERE p.user_id = :userId AND s.date < :now)"
+                    + " + (SELECT COUNT(*) FROM PARTICIPATE_ARCHIVE p JOIN SESSIONS_ARCHIVE s ON s.id = p.session_id"
+                    + " WHERE p.user_id = :userId AND s.date < :now)",
+            nativeQuery = true)
+    Page<SessionSummary> findPastByParticipant(@Param("userId") Long userId, @Param("now") Date now,
+                                               Pageable pageable);
+
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId, s.created_at AS createdAt, s.updated_at AS updatedAt,"
+            + " s.participant_count AS participantCount,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id AND p.user_id = :userId) AS ownParticipation"
+            + " FROM SESSIONS s ORDER BY s.id",
+            nativeQuery = true)
+    List<SessionListItem> findAllListItems(@Param("userId") Long userId);
+
+    @Query(value = "SELECT u.id AS id, u.first_name AS firstName, u.last_name AS lastName"
+            + " FROM PARTICIPATE p JOIN USERS u ON u.id = p.user_id"
+            + " WHERE p.session_id = :sessionId AND p.user_id > :after ORDER BY p.user_id LIMIT :size",
+            nativeQuery = true)
+    List<ParticipantSummary> findParticipantsAfter(@Param("sessionId") Long sessionId, @Param("after") Long after,
+                                                   @Param("size") int size);
+
+    @Query("SELECT s.capacity AS capacity, s.participantCount AS participantCount FROM Session s WHERE s.id = :id")
+    Optional<SessionSeats> findSeatsById(@Param("id") Long id);
+
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM Session s JOIN s.users u WHERE s.id = :sessionId AND u.id = :userId")
+    boolean existsParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(s.participantCount), 0) FROM Session s WHERE s.id = :sessionId")
+    long countParticipants(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.participantCount = s.participantCount + :delta WHERE s.id = :id")
+    int addToParticipantCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Counts one more participant unless the seats taken and {@code held} reach the capacity,
+     * returns 0 when the session is full. The row lock it takes serializes concurrent joins.
+     */
+    @Modifying
+    @Query("UPDATE Session s SET s.participantCount = s.participantCount + 1 WHERE s.id = :id"
+            + " AND (s.capacity IS NULL OR s.participantCount + :held < s.capacity)")
+    int takeSeat(@Param("id") Long id, @Param("held") int held);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Session s SET s.participantCount = SIZE(s.users) WHERE s.id = :id")
+    int recountParticipants(@Param("id") Long id);
+
+    /** Repairs drifted counts of the sessions whose id is within the range, returns how many were wrong. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Session s SET s.participantCount = SIZE(s.users)"
+            + " WHERE s.id BETWEEN :fromId AND :toId AND s.participantCount <> SIZE(s.users)")
+    int reconcileParticipantCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT COALESCE(MAX(s.id), 0) FROM Session s")
+    long findMaxId();
+
+    @Query("SELECT DISTINCT s FROM Session s LEFT JOIN FETCH s.teacher LEFT JOIN FETCH s.users"
+            + " WHERE s.updatedAt > :since")
+    List<Session> findChangedSince(@Param("since") LocalDateTime since);
+
+    @Query(value = "SELECT s.id AS id, s.teacher_id AS teacherId, s.date AS date, s.duration AS duration"
+            + " FROM SESSIONS s WHERE s.teacher_id IS NOT NULL",
+            nativeQuery = true)
+    List<SessionSlot> findAllSlots();
+
+    @Query(value = "SELECT s.id AS id, s.teacher_id AS teacherId, s.date AS date, s.duration AS duration"
+            + " FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId AND s.date >= :since",
+            nativeQuery = true)
+    List<SessionSlot> findSlotsByParticipant(@Param("userId") Long userId, @Param("since") Date since);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.CalendarEntryDto(s.id, s.name, s.date, s.duration, t.id)"
+            + " FROM Session s LEFT JOIN s.teacher t"
+            + " WHERE s.date >= :from AND s.date < :to ORDER BY s.date, s.id")
+    List<CalendarEntryDto> findCalendarEntries(@Param("from") Date from, @Param("to") Date to);
 }
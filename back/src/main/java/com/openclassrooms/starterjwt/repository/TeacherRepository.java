@@ -1,9 +1,51 @@
 package com.openclassrooms.starterjwt.repository;
 
+import com.openclassrooms.starterjwt.dto.TeacherMonthlyStats;
 import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Date;
+import java.util.List;
+
 @Repository
 public interface TeacherRepository  extends JpaRepository<Teacher, Long> {
+    @Override
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "teacher-list")
+    })
+    List<Teacher> findAll();
+
+    /** Monthly statistics over live and archived sessions. */
+    @Query(value = "SELECT t.teacherId AS teacherId, t.periodYear AS periodYear, t.periodMonth AS periodMonth,"
+            + " COUNT(*) AS sessionCount, SUM(t.attendees) AS participations, SUM(t.capacity) AS capacity,"
+            + " SUM(CASE WHEN t.capacity IS NULL THEN 0 ELSE t.attendees END) AS bookedSeats"
+            + " FROM (SELECT s.teacher_id AS teacherId, YEAR(s.date) AS periodYear, MONTH(s.date) AS periodMonth,"
+            + " s.capacity AS capacity, s.participant_count AS attendees"
+            + " FROM SESSIONS s WHERE s.date >= :from AND s.date < :to AND s.teacher_id IS NOT NULL"
+            + " UNION ALL SELECT s.teacher_id, YEAR(s.date), MONTH(s.date), s.capacity, s.participant_count"
+            + " FROM SESSIONS_ARCHIVE s WHERE s.date >= :from AND s.date < :to AND s.teacher_id IS NOT NULL) t"
+            + " GROUP BY t.teacherId, t.periodYear, t.periodMonth"
+            + " ORDER BY t.periodYear, t.periodMonth, t.teacherId",
+            nativeQuery = true)
+    List<TeacherMonthlyStats> findMonthlyStats(@Param("from") Date from, @Param("to") Date to);
+
+    @Query(value = "SELECT t.teacherId AS teacherId, t.periodYear AS periodYear, t.periodMonth AS periodMonth,"
+            + " COUNT(*) AS sessionCount, SUM(t.attendees) AS participations, SUM(t.capacity) AS capacity,"
+            + " SUM(CASE WHEN t.capacity IS NULL THEN 0 ELSE t.attendees END) AS bookedSeats"
+            + " FROM (SELECT s.teacher_id AS teacherId, YEAR(s.date) AS periodYear, MONTH(s.date) AS periodMonth,"
+            + " s.capacity AS capacity, s.participant_count AS attendees"
+            + " FROM SESSIONS s WHERE s.teacher_id = :teacherId AND s.date >= :from AND s.date < :to"
+            + " UNION ALL SELECT s.teacher_id, YEAR(s.date), MONTH(s.date), s.capacity, s.participant_count"
+            + " FROM SESSIONS_ARCHIVE s WHERE s.teacher_id = :teacherId AND s.date >= :from AND s.date < :to) t"
+            + " GROUP BY t.teacherId, t.periodYear, t.periodMonth"
+            + " ORDER BY t.periodYear, t.periodMonth",
+            nativeQuery = true)
+    List<TeacherMonthlyStats> findMonthlyStatsByTeacher(@Param("teacherId") Long teacherId,
+                                                        @Param("from") Date from, @Param("to") Date to);
 }
@@ -0,0 +1,24 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findBySessionIdOrderById(Long sessionId);
+
+    List<WaitlistEntry> findByUserIdOrderById(Long userId);
+
+    boolean existsBySessionIdAndUserId(Long sessionId, Long userId);
+
+    /** Returns 0 when the entry is already gone, which is how concurrent promotions tell who won. */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.sessionId = :sessionId AND w.userId = :userId")
+    int deleteBySessionIdAndUserId(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class TimedPasswordEncoder implements PasswordEncoder {
+  private final PasswordEncoder delegate;
+
+  private final Timer encodeTimer;
+
+  private final Timer matchesTimer;
+
+  public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.encodeTimer = Timer.builder("security.password.encode")
+        .tag("encoder", delegate.getClass().getSimpleName())
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.matchesTimer = Timer.builder("security.password.matches")
+        .tag("encoder", delegate.getClass().getSimpleName())
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -0,0 +1,171 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Participants of the sessions in a date range as CSV, archived sessions first and then live ones,
+ * each part in date order. Each part is a forward-only query walking its table's date index, so on
+ * MySQL rows stream as they are read and memory stays at one row whatever the size of the report;
+ * a single ordered union of both tables would be sorted in full before its first row.
+ */
+@Component
+@Log4j2
+public class AttendanceReport {
+    static final String HEADER = "session_id,session_name,session_date,user_id,email,last_name,first_name";
+
+    // Archived participations keep the user id of deleted accounts, with empty user columns.
+    private static final String ARCHIVE_QUERY = "SELECT s.id, s.name, s.date, p.user_id, u.email, u.last_name, u.first_name"
+            + " FROM SESSIONS_ARCHIVE s"
+            + " JOIN PARTICIPATE_ARCHIVE p ON p.session_id = s.id"
+            + " LEFT JOIN USERS u ON u.id = p.user_id"
+            + " WHERE s.date >= ? AND s.date < ?"
+            + " ORDER BY s.date, s.id";
+
+    private static final String LIVE_QUERY = "SELECT s.id, s.name, s.date, p.user_id, u.email, u.last_name, u.first_name"
+            + " FROM SESSIONS s"
+            + " JOIN PARTICIPATE p ON p.session_id = s.id"
+            + " JOIN USERS u ON u.id = p.user_id"
+            + " WHERE s.date >= ? AND s.date < ?"
+            + " ORDER BY s.date, s.id";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${oc.app.attendanceReport.fetchSize:1000}")
+    private int fetchSize;
+
+    @Value("${oc.app.attendanceReport.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    public AttendanceReport(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams the rows of sessions starting in [{@code from}, {@code to}). A failed write, typically
+     * the client going away, cancels the statement and is rethrown.
+     */
+    public void write(Date from, Date to, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16384);
+        try {
+            writer.write(HEADER);
+            writer.write("\r\n");
+            long rows = writeQuery(ARCHIVE_QUERY, from, to, writer) + writeQuery(LIVE_QUERY, from, to, writer);
+            writer.flush();
+            log.debug("Attendance report wrote {} rows", rows);
+        } catch (UncheckedIOException e) {
+            log.info("Attendance report cancelled: {}", e.getCause().getMessage());
+            throw e.getCause();
+        } catch (IOException e) {
+            log.info("Attendance report cancelled: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /** How long the report may stream before the request times out, far above other async requests. */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    private long writeQuery(String query, Date from, Date to, Writer writer) {
+        Long rows = this.jdbcTemplate.execute((PreparedStatementCreator) connection -> {
+            PreparedStatement statement = connection.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize(connection));
+            statement.setTimestamp(1, new Timestamp(from.getTime()));
+            statement.setTimestamp(2, new Timestamp(to.getTime()));
+            return statement;
+        }, (PreparedStatement statement) -> {
+            try (ResultSet rs = statement.executeQuery()) {
+                return writeRows(rs, writer);
+            } catch (IOException e) {
+                try {
+                    statement.cancel();
+                } catch (SQLException cancelFailed) {
+                    e.addSuppressed(cancelFailed);
+                }
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Connector/J reads the whole result into memory unless the fetch size is
+     * {@code Integer.MIN_VALUE}, which streams it on this statement only. Other drivers take a
+     * regular fetch size.
+     */
+    private int fetchSize(Connection connection) throws SQLException {
+        return "MySQL".equals(connection.getMetaData().getDatabaseProductName()) ? Integer.MIN_VALUE : this.fetchSize;
+    }
+
+    private static long writeRows(ResultSet rs, Writer writer) throws SQLException, IOException {
+        long rows = 0;
+        while (rs.next()) {
+            Timestamp date = rs.getTimestamp(3);
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writeField(writer, rs.getString(2));
+            writer.write(',');
+            writer.write(date == null ? "" : DATE_FORMAT.format(date.toLocalDateTime()));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(4)));
+            writer.write(',');
+            writeField(writer, rs.getString(5));
+            writer.write(',');
+            writeField(writer, rs.getString(6));
+            writer.write(',');
+            writeField(writer, rs.getString(7));
+            writer.write("\r\n");
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * RFC 4180 quoting. Values that a spreadsheet would evaluate as a formula are prefixed with a
+     * quote, since names and emails are user input.
+     */
+    static void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@'
+                || first == '\t' || first == '\r';
+        boolean quoted = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recounts PARTICIPATE into SESSIONS.participant_count, for rows written outside the participation
+ * endpoints (imports, manual fixes). Sessions are walked by id range, one short transaction per chunk,
+ * and only rows whose count differs are written.
+ */
+@Component
+@Log4j2
+public class ParticipantCountReconciler {
+    private final SessionRepository sessionRepository;
+
+    private final Counter repaired;
+
+    private final int chunkSize;
+
+    public ParticipantCountReconciler(SessionRepository sessionRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${oc.app.participantCount.reconcileChunkSize:1000}") int chunkSize) {
+        this.sessionRepository = sessionRepository;
+        this.chunkSize = chunkSize;
+        this.repaired = Counter.builder("session.participant_count.repaired")
+                .description("Sessions whose participant count had drifted from PARTICIPATE")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${oc.app.participantCount.reconcileCron:0 15 * * * *}")
+    public int reconcile() {
+        long maxId = this.sessionRepository.findMaxId();
+        int total = 0;
+        for (long fromId = 1; fromId <= maxId; fromId += chunkSize) {
+            total += this.sessionRepository.reconcileParticipantCounts(fromId, fromId + chunkSize - 1);
+        }
+
+        this.repaired.increment(total);
+        if (total > 0) {
+            log.warn("Repaired the participant count of {} sessions", total);
+        }
+        return total;
+    }
+}
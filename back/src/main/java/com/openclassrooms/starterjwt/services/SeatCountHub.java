@@ -0,0 +1,185 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SeatCountDto;
+import com.openclassrooms.starterjwt.events.ParticipationChangedEvent;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes participant counts to SSE subscribers. Committed participation changes only mark a
+ * session dirty; {@link #flush()} sends at most one count per session per interval, and each
+ * subscriber drains its own bounded buffer so a slow client drops stale counts instead of
+ * holding up the others.
+ */
+@Component
+@Log4j2
+public class SeatCountHub {
+    private final SessionRepository sessionRepository;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService sender;
+
+    private final Counter dropped;
+
+    private final int bufferSize;
+
+    private final long streamTimeoutMs;
+
+    public SeatCountHub(SessionRepository sessionRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${oc.app.seatCountSenderThreads:2}") int senderThreads,
+                        @Value("${oc.app.seatCountBufferSize:16}") int bufferSize,
+                        @Value("${oc.app.seatCountStreamTimeoutMs:1800000}") long streamTimeoutMs) {
+        this.sessionRepository = sessionRepository;
+        this.bufferSize = bufferSize;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "seat-count-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dropped = meterRegistry.counter("sse.seatcount.dropped");
+        meterRegistry.gauge("sse.seatcount.subscribers", this.subscribers,
+                map -> map.values().stream().mapToInt(List::size).sum());
+    }
+
+    public SseEmitter subscribe(Long sessionId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        register(sessionId, emitter);
+        return emitter;
+    }
+
+    void register(Long sessionId, SseEmitter emitter) {
+        if (!this.sessionRepository.existsById(sessionId)) {
+            throw new NotFoundException();
+        }
+
+        Subscriber subscriber = new Subscriber(sessionId, emitter);
+        this.subscribers.compute(sessionId, (id, list) -> {
+            List<Subscriber> target = list != null ? list : new CopyOnWriteArrayList<>();
+            target.add(subscriber);
+            return target;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscriber.offer(new SeatCountDto(sessionId, this.sessionRepository.countParticipants(sessionId)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onParticipationChanged(ParticipationChangedEvent event) {
+        if (this.subscribers.containsKey(event.getSessionId())) {
+            this.dirty.add(event.getSessionId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.seatCountIntervalMs:1000}")
+    public void flush() {
+        for (Iterator<Long> it = this.dirty.iterator(); it.hasNext(); ) {
+            Long sessionId = it.next();
+            it.remove();
+
+            List<Subscriber> targets = this.subscribers.get(sessionId);
+            if (targets == null || targets.isEmpty()) {
+                continue;
+            }
+
+            SeatCountDto count = new SeatCountDto(sessionId, this.sessionRepository.countParticipants(sessionId));
+            targets.forEach(subscriber -> subscriber.offer(count));
+        }
+    }
+
+    int subscriberCount(Long sessionId) {
+        List<Subscriber> targets = this.subscribers.get(sessionId);
+        return targets != null ? targets.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.sender.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        this.subscribers.computeIfPresent(subscriber.sessionId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long sessionId;
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<SeatCountDto> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Long sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SeatCountDto count) {
+            while (!this.buffer.offer(count)) {
+                if (this.buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (this.draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SeatCountDto count;
+                while ((count = this.buffer.poll()) != null) {
+                    this.emitter.send(SseEmitter.event().name("seats").data(count));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping seat count subscriber of session {}: {}", this.sessionId, e.getMessage());
+                remove(this);
+                this.buffer.clear();
+                return;
+            } finally {
+                this.draining.set(false);
+            }
+
+            if (!this.buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.SeatHoldReleasedEvent;
+import com.openclassrooms.starterjwt.util.TimingWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seats set aside for a few minutes before the holder confirms. Holds only live in memory: the
+ * held count of a session is checked and bumped in one {@code compute} on its map entry instead
+ * of locking the session row, and unconfirmed holds are released by a timing wheel rather than by
+ * polling a table. A seat given back unconfirmed is announced with a {@link SeatHoldReleasedEvent}
+ * so the session's waitlist can take it.
+ */
+@Component
+public class SeatHolds implements MeterBinder {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+
+    private final Map<Long, Integer> heldSeats = new ConcurrentHashMap<>();
+
+    /** Hold id of each session and user pair, so a user holds at most one seat per session. */
+    private final Map<String, String> holders = new ConcurrentHashMap<>();
+
+    private final TimingWheel<String> expiries;
+
+    private final long ttlMs;
+
+    private final LongAdder expired = new LongAdder();
+
+    public SeatHolds(ApplicationEventPublisher eventPublisher,
+                     @Value("${oc.app.seatHold.ttlMs:300000}") long ttlMs,
+                     @Value("${oc.app.seatHold.tickMs:1000}") long tickMs,
+                     @Value("${oc.app.seatHold.wheelSize:512}") int wheelSize) {
+        this.eventPublisher = eventPublisher;
+        this.ttlMs = ttlMs;
+        this.expiries = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Holds a seat when fewer than {@code freeSeats} are already held, {@code null} meaning the
+     * session has no capacity. Returns {@code null} when every free seat is taken or the user
+     * already holds one.
+     */
+    public Hold tryHold(Long sessionId, Long userId, Integer freeSeats) {
+        String holdId = UUID.randomUUID().toString();
+        if (this.holders.putIfAbsent(holderKey(sessionId, userId), holdId) != null) {
+            return null;
+        }
+
+        boolean[] granted = new boolean[1];
+        this.heldSeats.compute(sessionId, (id, held) -> {
+            int current = held == null ? 0 : held;
+            if (freeSeats != null && current >= freeSeats) {
+                return held;
+            }
+            granted[0] = true;
+            return current + 1;
+        });
+        if (!granted[0]) {
+            this.holders.remove(holderKey(sessionId, userId), holdId);
+            return null;
+        }
+
+        long expiresAt = System.currentTimeMillis() + this.ttlMs;
+        Hold hold = new Hold(holdId, sessionId, userId, expiresAt);
+        this.holds.put(hold.getId(), hold);
+        hold.expiry = this.expiries.schedule(hold.getId(), expiresAt);
+        return hold;
+    }
+
+    public int held(Long sessionId) {
+        return this.heldSeats.getOrDefault(sessionId, 0);
+    }
+
+    /**
+     * Takes the hold out so it can neither expire nor be confirmed twice. Its seat keeps counting
+     * against capacity until the caller's transaction completes, when the participation row it
+     * turned into is visible to everyone else.
+     */
+    public Hold claim(Long sessionId, String holdId, Long userId) {
+        Hold hold = take(sessionId, holdId, userId);
+        if (hold == null) {
+            return null;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    releaseSeat(hold.getSessionId());
+                }
+            });
+        } else {
+            releaseSeat(hold.getSessionId());
+        }
+        return hold;
+    }
+
+    public Hold release(Long sessionId, String holdId, Long userId) {
+        Hold hold = take(sessionId, holdId, userId);
+        if (hold != null) {
+            releaseSeat(sessionId);
+            this.eventPublisher.publishEvent(new SeatHoldReleasedEvent(sessionId));
+        }
+        return hold;
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.seatHold.tickMs:1000}")
+    public void expire() {
+        for (String holdId : this.expiries.advance(System.currentTimeMillis())) {
+            Hold hold = this.holds.remove(holdId);
+            if (hold != null) {
+                this.holders.remove(holderKey(hold.getSessionId(), hold.getUserId()), holdId);
+                releaseSeat(hold.getSessionId());
+                this.expired.increment();
+                this.eventPublisher.publishEvent(new SeatHoldReleasedEvent(hold.getSessionId()));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("session.seathold.active", this.holds, Map::size)
+                .description("Seats held and not yet confirmed")
+                .register(registry);
+        FunctionCounter.builder("session.seathold.expired", this.expired, LongAdder::sum)
+                .description("Holds released because they were not confirmed in time")
+                .register(registry);
+    }
+
+    /** Only the holder can take a hold; anyone else is told it does not exist. */
+    private Hold take(Long sessionId, String holdId, Long userId) {
+        Hold hold = this.holds.get(holdId);
+        if (hold == null || !hold.getSessionId().equals(sessionId) || !hold.getUserId().equals(userId)
+                || !this.holds.remove(holdId, hold)) {
+            return null;
+        }
+        // Null when the hold is taken before tryHold scheduled it; its expiry then finds nothing to remove.
+        if (hold.expiry != null) {
+            hold.expiry.cancel();
+        }
+        this.holders.remove(holderKey(sessionId, userId), holdId);
+        return hold;
+    }
+
+    private static String holderKey(Long sessionId, Long userId) {
+        return sessionId + ":" + userId;
+    }
+
+    private void releaseSeat(Long sessionId) {
+        this.heldSeats.computeIfPresent(sessionId, (id, held) -> held > 1 ? held - 1 : null);
+    }
+
+    @Getter
+    public static final class Hold {
+        private final String id;
+
+        private final Long sessionId;
+
+        private final Long userId;
+
+        private final long expiresAt;
+
+        @Getter(AccessLevel.NONE)
+        private volatile TimingWheel.Entry<String> expiry;
+
+        Hold(String id, Long sessionId, Long userId, long expiresAt) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
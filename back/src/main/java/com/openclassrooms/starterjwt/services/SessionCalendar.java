@@ -0,0 +1,171 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.CalendarDayDto;
+import com.openclassrooms.starterjwt.dto.CalendarEntryDto;
+import com.openclassrooms.starterjwt.events.SessionDeletedEvent;
+import com.openclassrooms.starterjwt.events.SessionsArchivedEvent;
+import com.openclassrooms.starterjwt.events.SessionSavedEvent;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Upcoming sessions bucketed by day over a sliding window of {@code horizonDays} starting today.
+ * Calendar reads inside the window are bucket lookups; days outside it are read from the database.
+ * The window is loaded on first use, slides on the first read of each day, and follows session
+ * writes through {@link SessionSavedEvent} and {@link SessionDeletedEvent}.
+ */
+@Component
+public class SessionCalendar {
+    private static final Comparator<CalendarEntryDto> BY_START =
+            Comparator.comparing(CalendarEntryDto::getDate).thenComparing(CalendarEntryDto::getId);
+
+    private final SessionRepository sessionRepository;
+
+    private final int horizonDays;
+
+    private final TreeMap<LocalDate, List<CalendarEntryDto>> days = new TreeMap<>();
+
+    private final Map<Long, LocalDate> dayOfSession = new HashMap<>();
+
+    private LocalDate windowStart;
+
+    public SessionCalendar(SessionRepository sessionRepository,
+                           @Value("${oc.app.calendar.horizonDays:90}") int horizonDays) {
+        this.sessionRepository = sessionRepository;
+        this.horizonDays = horizonDays;
+    }
+
+    /** Days between {@code from} and {@code to} (both included) that have sessions, in order. */
+    public List<CalendarDayDto> find(LocalDate from, LocalDate to) {
+        LocalDate end = to.plusDays(1);
+        TreeMap<LocalDate, List<CalendarEntryDto>> found = new TreeMap<>();
+        LocalDate start;
+        LocalDate windowEnd;
+
+        synchronized (this) {
+            slideTo(LocalDate.now());
+            start = windowStart;
+            windowEnd = windowStart.plusDays(horizonDays);
+            LocalDate lower = max(from, start);
+            LocalDate upper = min(end, windowEnd);
+            if (lower.isBefore(upper)) {
+                days.subMap(lower, upper).forEach((day, entries) -> found.put(day, new ArrayList<>(entries)));
+            }
+        }
+
+        if (from.isBefore(start)) {
+            addFromDatabase(found, from, min(end, start));
+        }
+        if (end.isAfter(windowEnd)) {
+            addFromDatabase(found, max(from, windowEnd), end);
+        }
+
+        List<CalendarDayDto> calendar = new ArrayList<>(found.size());
+        found.forEach((day, entries) -> calendar.add(new CalendarDayDto(day, entries)));
+        return calendar;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onSessionSaved(SessionSavedEvent event) {
+        Session session = event.getSession();
+        remove(session.getId());
+        if (windowStart == null || session.getDate() == null) {
+            return;
+        }
+
+        LocalDate day = dayOf(session.getDate());
+        if (!day.isBefore(windowStart) && day.isBefore(windowStart.plusDays(horizonDays))) {
+            add(new CalendarEntryDto(session.getId(), session.getName(), session.getDate(), session.getDuration(),
+                    session.getTeacher() == null ? null : session.getTeacher().getId()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onSessionDeleted(SessionDeletedEvent event) {
+        remove(event.getSessionId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onSessionsArchived(SessionsArchivedEvent event) {
+        event.getSessionIds().forEach(this::remove);
+    }
+
+    private void slideTo(LocalDate today) {
+        if (windowStart == null) {
+            load(today, today.plusDays(horizonDays));
+            windowStart = today;
+        } else if (today.isAfter(windowStart)) {
+            Map<LocalDate, List<CalendarEntryDto>> past = days.headMap(today);
+            past.values().forEach(entries -> entries.forEach(entry -> dayOfSession.remove(entry.getId())));
+            past.clear();
+            load(max(windowStart.plusDays(horizonDays), today), today.plusDays(horizonDays));
+            windowStart = today;
+        }
+    }
+
+    private void load(LocalDate from, LocalDate to) {
+        for (CalendarEntryDto entry : sessionRepository.findCalendarEntries(startOf(from), startOf(to))) {
+            add(entry);
+        }
+    }
+
+    private void add(CalendarEntryDto entry) {
+        LocalDate day = dayOf(entry.getDate());
+        List<CalendarEntryDto> entries = days.computeIfAbsent(day, d -> new ArrayList<>());
+        int at = 0;
+        while (at < entries.size() && BY_START.compare(entries.get(at), entry) < 0) {
+            at++;
+        }
+        entries.add(at, entry);
+        dayOfSession.put(entry.getId(), day);
+    }
+
+    private void remove(Long sessionId) {
+        LocalDate day = dayOfSession.remove(sessionId);
+        if (day == null) {
+            return;
+        }
+        List<CalendarEntryDto> entries = days.get(day);
+        entries.removeIf(entry -> entry.getId().equals(sessionId));
+        if (entries.isEmpty()) {
+            days.remove(day);
+        }
+    }
+
+    private void addFromDatabase(Map<LocalDate, List<CalendarEntryDto>> found, LocalDate from, LocalDate to) {
+        for (CalendarEntryDto entry : sessionRepository.findCalendarEntries(startOf(from), startOf(to))) {
+            found.computeIfAbsent(dayOf(entry.getDate()), d -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    private static LocalDate dayOf(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static Date startOf(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -1,33 +1,120 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.CalendarDayDto;
+import com.openclassrooms.starterjwt.dto.ParticipantPage;
+import com.openclassrooms.starterjwt.dto.ParticipantSummary;
+import com.openclassrooms.starterjwt.dto.ScheduleConflictDto;
+import com.openclassrooms.starterjwt.dto.SeatHoldDto;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSeats;
+import com.openclassrooms.starterjwt.dto.SessionListItem;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.dto.WaitlistPositionDto;
+import com.openclassrooms.starterjwt.events.ParticipationChangedEvent;
+import com.openclassrooms.starterjwt.events.ParticipantLeftEvent;
+import com.openclassrooms.starterjwt.events.SessionDeletedEvent;
+import com.openclassrooms.starterjwt.events.SessionSavedEvent;
+import com.openclassrooms.starterjwt.events.WaitlistPromotedEvent;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.participation.ParticipationOutcome;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.util.SingleFlight;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-public class SessionService {
+public class SessionService implements MeterBinder {
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TeacherScheduleIndex teacherSchedule;
+
+    private final UserScheduleCache userSchedules;
+
+    private final SessionCalendar sessionCalendar;
+
+    private final SessionWaitlist waitlist;
+
+    private final SeatHolds seatHolds;
+
+    private final SessionMapper sessionMapper;
+
+    // Shares DTOs, not entities: a managed Session belongs to the persistence context of the
+    // request that loaded it and must not be read lazily from other threads
+    private final SingleFlight<Long, SessionDto> sessionLoads = new SingleFlight<>();
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository,
+                          SessionDeletionRepository sessionDeletionRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          TeacherScheduleIndex teacherSchedule,
+                          UserScheduleCache userSchedules,
+                          SessionCalendar sessionCalendar,
+                          SessionWaitlist waitlist,
+                          SeatHolds seatHolds,
+                          SessionMapper sessionMapper) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.eventPublisher = eventPublisher;
+        this.teacherSchedule = teacherSchedule;
+        this.userSchedules = userSchedules;
+        this.sessionCalendar = sessionCalendar;
+        this.waitlist = waitlist;
+        this.seatHolds = seatHolds;
+        this.sessionMapper = sessionMapper;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        this.teacherSchedule.reserve(session);
+        Session created = this.sessionRepository.save(session);
+        this.teacherSchedule.put(created);
+        this.eventPublisher.publishEvent(new SessionSavedEvent(created));
+        return created;
     }
 
+    @Transactional
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
+        this.sessionDeletionRepository.save(new SessionDeletion(id, LocalDateTime.now()));
+        this.teacherSchedule.remove(id);
+        this.userSchedules.evictSession(id);
+        this.waitlist.evictSession(id);
+        this.eventPublisher.publishEvent(new SessionDeletedEvent(id));
     }
 
     public List<Session> findAll() {
@@ -38,12 +125,98 @@ public class SessionService {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    /** Concurrent reads of the same session share one load, mapped before it is handed out. */
+    public SessionDto getDtoById(Long id) {
+        return this.sessionLoads.execute(id, () -> this.sessionRepository.findById(id)
+                .map(this.sessionMapper::toDto)
+                .orElse(null));
+    }
+
+    public List<SessionListItem> findAllListItems(Long userId) {
+        return this.sessionRepository.findAllListItems(userId);
+    }
+
+    public ParticipantPage findParticipants(Long id, Long after, int size) {
+        if (!this.sessionRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+
+        List<ParticipantSummary> participants = this.sessionRepository.findParticipantsAfter(id, after, size);
+        Long nextAfter = participants.size() < size ? null : participants.get(participants.size() - 1).getId();
+
+        return new ParticipantPage(participants, this.sessionRepository.countParticipants(id), nextAfter);
+    }
+
+    public Page<SessionSummary> findByParticipant(Long userId, boolean upcoming, Pageable pageable) {
+        Date now = new Date();
+        if (upcoming) {
+            return this.sessionRepository.findUpcomingByParticipant(userId, now, pageable);
+        }
+        return this.sessionRepository.findPastByParticipant(userId, now, pageable);
+    }
+
+    @Transactional
     public Session update(Long id, Session session) {
         session.setId(id);
-        return this.sessionRepository.save(session);
+        this.teacherSchedule.reserve(session);
+        Session updated = this.sessionRepository.save(session);
+        // The count column is not written by entity updates, the new participant list has to be counted.
+        this.sessionRepository.recountParticipants(id);
+        updated.setParticipantCount(updated.getUsers() == null ? 0 : updated.getUsers().size());
+        this.teacherSchedule.put(updated);
+        this.userSchedules.evictSession(id);
+        this.eventPublisher.publishEvent(new SessionSavedEvent(updated));
+        return updated;
+    }
+
+    public List<CalendarDayDto> findCalendar(LocalDate from, LocalDate to) {
+        return this.sessionCalendar.find(from, to);
+    }
+
+    public List<ScheduleConflictDto> findTeacherConflicts(Date from, Date to) {
+        return this.teacherSchedule.findConflicts(from, to);
     }
 
+    @Timed(value = "session.participate", histogram = true)
+    @Transactional
     public void participate(Long id, Long userId) {
+        join(id, userId, true);
+    }
+
+    public SeatHoldDto hold(Long id, Long userId) {
+        SessionSeats seats = this.sessionRepository.findSeatsById(id).orElseThrow(NotFoundException::new);
+        if (userId == null || !this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+        if (this.sessionRepository.existsParticipant(id, userId) || this.waitlist.length(id) > 0) {
+            throw new BadRequestException();
+        }
+
+        Integer freeSeats = seats.getCapacity() == null ? null : seats.getCapacity() - seats.getParticipantCount();
+        SeatHolds.Hold hold = this.seatHolds.tryHold(id, userId, freeSeats);
+        if (hold == null) {
+            throw new BadRequestException();
+        }
+        return new SeatHoldDto(hold.getId(), id, userId,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()));
+    }
+
+    /** Turns the hold into a participation; the seat it reserved is used instead of checking capacity. */
+    @Transactional
+    public void confirmHold(Long id, String holdId, Long userId) {
+        if (this.seatHolds.claim(id, holdId, userId) == null) {
+            throw new NotFoundException();
+        }
+        join(id, userId, false);
+    }
+
+    public void releaseHold(Long id, String holdId, Long userId) {
+        if (this.seatHolds.release(id, holdId, userId) == null) {
+            throw new NotFoundException();
+        }
+    }
+
+    private void join(Long id, Long userId, boolean checkCapacity) {
         Session session = this.sessionRepository.findById(id).orElse(null);
         User user = this.userRepository.findById(userId).orElse(null);
         if (session == null || user == null) {
@@ -55,11 +228,75 @@ public class SessionService {
             throw new BadRequestException();
         }
 
+        // Free seats go to the waitlist first, so nobody joins directly past the users waiting.
+        if (checkCapacity && (isFull(session, session.getUsers().size()) || this.waitlist.length(id) > 0)) {
+            throw new BadRequestException();
+        }
+
+        if (this.userSchedules.overlaps(userId, session)) {
+            throw new BadRequestException();
+        }
+
         session.getUsers().add(user);
+        session.setUpdatedAt(LocalDateTime.now());
 
+        // The in-memory check above reads this transaction's snapshot; the seat itself is taken
+        // on the row so that concurrent joins cannot both get the last one.
+        if (checkCapacity && this.sessionRepository.takeSeat(id, this.seatHolds.held(id)) == 0) {
+            throw new BadRequestException();
+        }
+        if (!checkCapacity) {
+            this.sessionRepository.addToParticipantCount(id, 1);
+        }
         this.sessionRepository.save(session);
+        this.userSchedules.joined(userId, session);
+        this.eventPublisher.publishEvent(new ParticipationChangedEvent(id));
     }
 
+    @Transactional
+    public List<ParticipationOutcome> participateAll(Long id, List<Long> userIds) {
+        Session session = this.sessionRepository.findById(id).orElse(null);
+        if (session == null) {
+            return userIds.stream().map(userId -> ParticipationOutcome.SESSION_NOT_FOUND).collect(Collectors.toList());
+        }
+
+        Map<Long, User> users = this.userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Set<Long> participants = session.getUsers().stream().map(User::getId).collect(Collectors.toSet());
+
+        boolean queued = this.waitlist.length(id) > 0;
+        List<ParticipationOutcome> outcomes = new ArrayList<>(userIds.size());
+        int accepted = 0;
+        for (Long userId : userIds) {
+            User user = users.get(userId);
+            if (user == null) {
+                outcomes.add(ParticipationOutcome.USER_NOT_FOUND);
+            } else if (participants.contains(userId)) {
+                outcomes.add(ParticipationOutcome.DUPLICATE);
+            } else if (queued || isFull(session, participants.size())) {
+                outcomes.add(ParticipationOutcome.FULL);
+            } else if (this.userSchedules.overlaps(userId, session)) {
+                outcomes.add(ParticipationOutcome.SCHEDULE_CONFLICT);
+            } else if (this.sessionRepository.takeSeat(id, this.seatHolds.held(id)) == 0) {
+                outcomes.add(ParticipationOutcome.FULL);
+            } else {
+                participants.add(userId);
+                session.getUsers().add(user);
+                this.userSchedules.joined(userId, session);
+                outcomes.add(ParticipationOutcome.ACCEPTED);
+                accepted++;
+            }
+        }
+
+        if (accepted > 0) {
+            session.setUpdatedAt(LocalDateTime.now());
+            this.sessionRepository.save(session);
+            this.eventPublisher.publishEvent(new ParticipationChangedEvent(id));
+        }
+        return outcomes;
+    }
+
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
         Session session = this.sessionRepository.findById(id).orElse(null);
         if (session == null) {
@@ -72,7 +309,122 @@ public class SessionService {
         }
 
         session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        session.setUpdatedAt(LocalDateTime.now());
+        this.userSchedules.left(userId, id);
+        int promoted = promoteFromWaitlist(session);
 
         this.sessionRepository.save(session);
+        this.sessionRepository.addToParticipantCount(id, promoted - 1);
+        this.eventPublisher.publishEvent(new ParticipationChangedEvent(id));
+        this.eventPublisher.publishEvent(new ParticipantLeftEvent(id, userId));
+    }
+
+    @Transactional
+    public WaitlistPositionDto joinWaitlist(Long id, Long userId) {
+        Session session = this.sessionRepository.findById(id).orElse(null);
+        if (session == null || !this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+
+        // Only a full session, or one whose waitlist is not drained yet, has a waitlist, and a
+        // participant or a waiting user cannot queue again.
+        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
+        boolean queued = this.waitlist.length(id) > 0;
+        if (alreadyParticipate || (!queued && !isFull(session, session.getUsers().size()))
+                || this.waitlist.positionOf(id, userId) > 0) {
+            throw new BadRequestException();
+        }
+
+        try {
+            int position = this.waitlist.enqueue(id, userId);
+            return new WaitlistPositionDto(id, userId, position, this.waitlist.length(id) + 1);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public WaitlistPositionDto findWaitlistPosition(Long id, Long userId) {
+        int position = this.waitlist.positionOf(id, userId);
+        if (position == 0) {
+            throw new NotFoundException();
+        }
+        return new WaitlistPositionDto(id, userId, position, this.waitlist.length(id));
+    }
+
+    @Transactional
+    public void leaveWaitlist(Long id, Long userId) {
+        if (!this.waitlist.remove(id, userId)) {
+            throw new BadRequestException();
+        }
+    }
+
+    /**
+     * Gives the free seats of the session to its waitlist in a transaction of its own, for seats
+     * freed outside of a participation change: a hold given back, or a waiting user skipped for an
+     * overlap that is gone now. Returns how many users were promoted.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int promoteWaiting(Long id) {
+        Session session = this.sessionRepository.findById(id).orElse(null);
+        if (session == null || this.waitlist.length(id) == 0) {
+            return 0;
+        }
+
+        int promoted = promoteFromWaitlist(session);
+        if (promoted > 0) {
+            session.setUpdatedAt(LocalDateTime.now());
+            this.sessionRepository.save(session);
+            this.sessionRepository.addToParticipantCount(id, promoted);
+            this.eventPublisher.publishEvent(new ParticipationChangedEvent(id));
+        }
+        return promoted;
+    }
+
+    /**
+     * Moves waiting users into the seats freed in {@code session}, head first, within the caller's
+     * transaction. A user whose schedule now overlaps the session keeps their place until they
+     * leave the overlapping session, see {@link WaitlistPromoter}.
+     */
+    private int promoteFromWaitlist(Session session) {
+        if (session.getCapacity() == null) {
+            return 0;
+        }
+
+        int promoted = 0;
+        for (Long userId : this.waitlist.waiting(session.getId())) {
+            if (isFull(session, session.getUsers().size())) {
+                break;
+            }
+            if (this.userSchedules.overlaps(userId, session)) {
+                continue;
+            }
+            User user = this.userRepository.findById(userId).orElse(null);
+            if (user == null || !this.waitlist.remove(session.getId(), userId)) {
+                continue;
+            }
+
+            session.getUsers().add(user);
+            this.userSchedules.joined(userId, session);
+            this.eventPublisher.publishEvent(new WaitlistPromotedEvent(session.getId(), userId));
+            promoted++;
+        }
+        return promoted;
+    }
+
+    private boolean isFull(Session session, int participants) {
+        return session.getCapacity() != null
+                && participants + this.seatHolds.held(session.getId()) >= session.getCapacity();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("session.singleflight.loads", this.sessionLoads, SingleFlight::leaders)
+                .description("Session loads that hit the database")
+                .register(registry);
+        FunctionCounter.builder("session.singleflight.coalesced", this.sessionLoads, SingleFlight::followers)
+                .description("Session loads served by another request's in-flight load")
+                .register(registry);
+        Gauge.builder("session.singleflight.coalescing.ratio", this.sessionLoads, SingleFlight::coalescingRatio)
+                .register(registry);
     }
 }
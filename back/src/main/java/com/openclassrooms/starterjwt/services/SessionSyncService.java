@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionChangesDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sync tokens are epoch milliseconds issued {@code oc.app.syncLagMs} behind the clock, so rows
+ * stamped before a slow commit are still returned next time; clients must apply changes idempotently.
+ */
+@Service
+@Log4j2
+public class SessionSyncService {
+    private final SessionRepository sessionRepository;
+
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final SessionMapper sessionMapper;
+
+    @Value("${oc.app.syncLagMs:5000}")
+    private long syncLagMs;
+
+    @Value("${oc.app.tombstoneRetentionDays:30}")
+    private int tombstoneRetentionDays;
+
+    public SessionSyncService(SessionRepository sessionRepository,
+                              SessionDeletionRepository sessionDeletionRepository,
+                              SessionMapper sessionMapper) {
+        this.sessionRepository = sessionRepository;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.sessionMapper = sessionMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public SessionChangesDto findChanges(String since) {
+        long now = System.currentTimeMillis();
+        String token = String.valueOf(now - syncLagMs);
+
+        if (since == null) {
+            return fullSync(token);
+        }
+
+        LocalDateTime sinceTime = toLocalDateTime(parseToken(since));
+        if (sinceTime.isBefore(retentionCutoff(now))) {
+            return fullSync(token);
+        }
+
+        List<Session> sessions = this.sessionRepository.findChangedSince(sinceTime);
+        List<Long> deleted = this.sessionDeletionRepository.findByDeletedAtAfter(sinceTime).stream()
+                .map(SessionDeletion::getSessionId)
+                .collect(Collectors.toList());
+
+        return new SessionChangesDto(this.sessionMapper.toDto(sessions), deleted, token, false);
+    }
+
+    @Scheduled(cron = "${oc.app.tombstonePruneCron:0 30 3 * * *}")
+    @Transactional
+    public void pruneDeletions() {
+        int pruned = this.sessionDeletionRepository.deleteOlderThan(retentionCutoff(System.currentTimeMillis()));
+
+        log.info("Pruned {} session tombstones", pruned);
+    }
+
+    private SessionChangesDto fullSync(String token) {
+        List<Session> sessions = this.sessionRepository.findAll();
+
+        return new SessionChangesDto(this.sessionMapper.toDto(sessions), Collections.emptyList(), token, true);
+    }
+
+    private long parseToken(String token) {
+        try {
+            long millis = Long.parseLong(token);
+            if (millis < 0) {
+                throw new BadRequestException();
+            }
+            return millis;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    private LocalDateTime retentionCutoff(long now) {
+        return toLocalDateTime(now).minusDays(tombstoneRetentionDays);
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,229 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FIFO waitlists of full sessions. SESSION_WAITLIST is the source of truth; the queues of recently
+ * used sessions are kept in memory in entry id order, loaded on first use and patched after each
+ * enqueue or removal commits, so positions and promotion candidates need no query. A load that an
+ * enqueue or removal for the same session commits during is thrown away and read again.
+ */
+@Component
+public class SessionWaitlist {
+    private final WaitlistRepository waitlistRepository;
+
+    private final Map<Long, Queue> queues;
+
+    /** Loads in flight per session, guarded by the {@code queues} lock. */
+    private final Map<Long, Load> loads = new HashMap<>();
+
+    public SessionWaitlist(WaitlistRepository waitlistRepository,
+                           @Value("${oc.app.waitlist.maxSessions:10000}") int maxSessions) {
+        this.waitlistRepository = waitlistRepository;
+        this.queues = new LinkedHashMap<Long, Queue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Queue> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /** Queues the user behind everyone already waiting and returns their 1-based position. */
+    public int enqueue(Long sessionId, Long userId) {
+        Queue queue = queueOf(sessionId);
+        WaitlistEntry entry = waitlistRepository.save(
+                new WaitlistEntry(null, sessionId, userId, LocalDateTime.now()));
+
+        int position;
+        synchronized (queues) {
+            position = queue.countBefore(entry.getId()) + 1;
+        }
+        afterCommit(() -> {
+            synchronized (queues) {
+                changed(sessionId);
+                Queue cached = queues.get(sessionId);
+                if (cached != null) {
+                    cached.add(entry.getId(), userId);
+                }
+            }
+        });
+        return position;
+    }
+
+    /** Returns false when the user was not (or no longer) waiting, e.g. a concurrent promotion took them. */
+    public boolean remove(Long sessionId, Long userId) {
+        if (waitlistRepository.deleteBySessionIdAndUserId(sessionId, userId) == 0) {
+            return false;
+        }
+        afterCommit(() -> {
+            synchronized (queues) {
+                changed(sessionId);
+                Queue cached = queues.get(sessionId);
+                if (cached != null) {
+                    cached.remove(userId);
+                }
+            }
+        });
+        return true;
+    }
+
+    /** 1-based position of the user, 0 when they are not waiting. */
+    public int positionOf(Long sessionId, Long userId) {
+        Queue queue = queueOf(sessionId);
+        synchronized (queues) {
+            return queue.positionOf(userId);
+        }
+    }
+
+    public int length(Long sessionId) {
+        Queue queue = queueOf(sessionId);
+        synchronized (queues) {
+            return queue.size();
+        }
+    }
+
+    /** Waiting users in promotion order. */
+    public List<Long> waiting(Long sessionId) {
+        Queue queue = queueOf(sessionId);
+        synchronized (queues) {
+            return queue.userIds();
+        }
+    }
+
+    /** Sessions the user is waiting for, oldest entry first. */
+    public List<Long> sessionsOf(Long userId) {
+        List<Long> sessionIds = new ArrayList<>();
+        waitlistRepository.findByUserIdOrderById(userId).forEach(entry -> sessionIds.add(entry.getSessionId()));
+        return sessionIds;
+    }
+
+    public void evictSession(Long sessionId) {
+        afterCommit(() -> {
+            synchronized (queues) {
+                changed(sessionId);
+                queues.remove(sessionId);
+            }
+        });
+    }
+
+    private Queue queueOf(Long sessionId) {
+        while (true) {
+            Load load;
+            long version;
+            synchronized (queues) {
+                Queue queue = queues.get(sessionId);
+                if (queue != null) {
+                    return queue;
+                }
+                load = loads.computeIfAbsent(sessionId, id -> new Load());
+                load.loaders++;
+                version = load.version;
+            }
+
+            List<WaitlistEntry> entries;
+            try {
+                entries = waitlistRepository.findBySessionIdOrderById(sessionId);
+            } catch (RuntimeException e) {
+                synchronized (queues) {
+                    finished(sessionId, load);
+                }
+                throw e;
+            }
+
+            Queue loaded = new Queue();
+            entries.forEach(entry -> loaded.add(entry.getId(), entry.getUserId()));
+            synchronized (queues) {
+                finished(sessionId, load);
+                if (load.version == version) {
+                    Queue raced = queues.putIfAbsent(sessionId, loaded);
+                    return raced != null ? raced : loaded;
+                }
+            }
+            // An enqueue or removal committed while loading and the rows read may predate it.
+        }
+    }
+
+    private void finished(Long sessionId, Load load) {
+        if (--load.loaders == 0) {
+            loads.remove(sessionId);
+        }
+    }
+
+    /** Invalidates the loads of the session in flight; the caller holds the {@code queues} lock. */
+    private void changed(Long sessionId) {
+        Load load = loads.get(sessionId);
+        if (load != null) {
+            load.version++;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Guarded by the {@code queues} lock. */
+    private static final class Load {
+        private int loaders;
+
+        private long version;
+    }
+
+    /** Not thread-safe, guarded by the {@code queues} lock. */
+    private static final class Queue {
+        private final TreeMap<Long, Long> userByEntry = new TreeMap<>();
+
+        private final Map<Long, Long> entryByUser = new HashMap<>();
+
+        void add(Long entryId, Long userId) {
+            remove(userId);
+            userByEntry.put(entryId, userId);
+            entryByUser.put(userId, entryId);
+        }
+
+        void remove(Long userId) {
+            Long entryId = entryByUser.remove(userId);
+            if (entryId != null) {
+                userByEntry.remove(entryId);
+            }
+        }
+
+        int positionOf(Long userId) {
+            Long entryId = entryByUser.get(userId);
+            return entryId == null ? 0 : countBefore(entryId) + 1;
+        }
+
+        int countBefore(Long entryId) {
+            return userByEntry.headMap(entryId, false).size();
+        }
+
+        int size() {
+            return userByEntry.size();
+        }
+
+        List<Long> userIds() {
+            return new ArrayList<>(userByEntry.values());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops the cached teacher list whenever Hibernate writes a teacher. Registered on the session
+ * factory by {@link com.openclassrooms.starterjwt.config.HibernateEventConfig} rather than as an
+ * entity listener, so the model does not depend on the services.
+ */
+@Component
+public class TeacherChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final transient TeacherListCache teacherListCache;
+
+    public TeacherChangeListener(TeacherListCache teacherListCache) {
+        this.teacherListCache = teacherListCache;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onEntityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onEntityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onEntityChanged(event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void onEntityChanged(Object entity) {
+        if (!(entity instanceof Teacher)) {
+            return;
+        }
+
+        this.teacherListCache.invalidate();
+        // A reader may rebuild from the pre-commit state in between; drop that copy too.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    teacherListCache.invalidate();
+                }
+            });
+        }
+    }
+}
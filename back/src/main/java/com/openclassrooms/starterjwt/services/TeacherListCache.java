@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized (and gzipped) body of {@code GET /api/teacher}, built on first use and dropped whenever
+ * a teacher is written through JPA (see {@link TeacherChangeListener}).
+ */
+@Component
+public class TeacherListCache {
+    private final TeacherService teacherService;
+
+    private final TeacherMapper teacherMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Body body;
+
+    private volatile long generation;
+
+    public TeacherListCache(TeacherService teacherService, TeacherMapper teacherMapper, ObjectMapper objectMapper) {
+        this.teacherService = teacherService;
+        this.teacherMapper = teacherMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    public Body get() {
+        Body current = this.body;
+        if (current != null) {
+            return current;
+        }
+
+        long started = this.generation;
+        Body built = build();
+        synchronized (this) {
+            if (this.generation == started) {
+                this.body = built;
+            }
+        }
+        return built;
+    }
+
+    public synchronized void invalidate() {
+        this.generation++;
+        this.body = null;
+    }
+
+    private Body build() {
+        try {
+            byte[] json = this.objectMapper.writeValueAsBytes(this.teacherMapper.toDto(this.teacherService.findAll()));
+            return new Body(json, gzip(json), "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Getter
+    public static class Body {
+        private final byte[] json;
+
+        private final byte[] gzip;
+
+        private final String etag;
+
+        Body(byte[] json, byte[] gzip, String etag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+    }
+}
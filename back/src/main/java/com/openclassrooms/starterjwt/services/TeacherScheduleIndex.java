@@ -0,0 +1,250 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.ScheduleConflictDto;
+import com.openclassrooms.starterjwt.dto.SessionSlot;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.util.IntervalTree;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessions of each teacher as an {@link IntervalTree}, so a write can be checked for double booking
+ * without a query. Loaded from SESSIONS on first use, kept up to date by {@link SessionService}, and
+ * reloaded every {@code refreshIntervalMs} to pick up rows written outside JPA. Changes are applied
+ * once the writing transaction commits; until then the slot a write checked is held as a
+ * reservation, so a concurrent write for the same teacher sees it.
+ */
+@Component
+@Log4j2
+public class TeacherScheduleIndex {
+    private final SessionRepository sessionRepository;
+
+    private Map<Long, IntervalTree> trees;
+
+    private Map<Long, Long> teacherOfSession;
+
+    private final List<Reservation> reservations = new ArrayList<>();
+
+    /** Changes committed while a reload runs, replayed onto the reloaded snapshot before it is swapped in. */
+    private List<Change> changesDuringLoad;
+
+    @Value("${oc.app.teacherSchedule.rejectOverlaps:true}")
+    private boolean rejectOverlaps;
+
+    public TeacherScheduleIndex(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    /**
+     * Throws {@link BadRequestException} (or only logs, if overlaps are allowed) when the teacher is
+     * already busy, otherwise holds the slot until the surrounding transaction completes.
+     */
+    public synchronized void reserve(Session session) {
+        Long teacherId = teacherIdOf(session);
+        if (teacherId == null || session.getDate() == null) {
+            return;
+        }
+
+        ensureLoaded();
+        long start = session.getDate().getTime();
+        Reservation reservation = new Reservation(session.getId(), teacherId, start, end(start, session.getDuration()));
+        Long conflict = findOverlap(reservation);
+        if (conflict != null || overlapsReservation(reservation)) {
+            if (rejectOverlaps) {
+                throw new BadRequestException();
+            }
+            log.warn("Session {} of teacher {} overlaps session {}", session.getId(), teacherId, conflict);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            reservations.add(reservation);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (TeacherScheduleIndex.this) {
+                        reservations.remove(reservation);
+                    }
+                }
+            });
+        }
+    }
+
+    public void put(Session session) {
+        Long sessionId = session.getId();
+        Long teacherId = teacherIdOf(session);
+        Date date = session.getDate();
+        Integer duration = session.getDuration();
+        afterCommit((trees, teacherOfSession) -> {
+            removeFrom(trees, teacherOfSession, sessionId);
+            if (teacherId != null && date != null) {
+                add(trees, teacherOfSession, sessionId, teacherId, date, duration);
+            }
+        });
+    }
+
+    public void remove(Long sessionId) {
+        afterCommit((trees, teacherOfSession) -> removeFrom(trees, teacherOfSession, sessionId));
+    }
+
+    /** Every pair of sessions of a same teacher that overlap each other within {@code [from, to)}. */
+    public synchronized List<ScheduleConflictDto> findConflicts(Date from, Date to) {
+        ensureLoaded();
+
+        List<ScheduleConflictDto> conflicts = new ArrayList<>();
+        new TreeMap<>(trees).forEach((teacherId, tree) -> {
+            List<IntervalTree.Interval> active = new ArrayList<>();
+            for (IntervalTree.Interval current : tree.findOverlaps(from.getTime(), to.getTime())) {
+                active.removeIf(interval -> interval.getEnd() <= current.getStart());
+                for (IntervalTree.Interval earlier : active) {
+                    conflicts.add(new ScheduleConflictDto(teacherId, earlier.getId(), current.getId(),
+                            new Date(current.getStart()), new Date(Math.min(earlier.getEnd(), current.getEnd()))));
+                }
+                active.add(current);
+            }
+        });
+        return conflicts;
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.teacherSchedule.refreshIntervalMs:3600000}",
+            initialDelayString = "${oc.app.teacherSchedule.refreshIntervalMs:3600000}")
+    public void refresh() {
+        synchronized (this) {
+            if (trees == null) {
+                return;
+            }
+        }
+        load();
+    }
+
+    private Long findOverlap(Reservation reservation) {
+        IntervalTree tree = trees.get(reservation.teacherId);
+        long excludedId = reservation.sessionId == null ? Long.MIN_VALUE : reservation.sessionId;
+        return tree == null ? null : tree.findOverlap(reservation.start, reservation.end, excludedId);
+    }
+
+    /** Slots checked by writes whose transaction is still open; a new session's has no id yet. */
+    private boolean overlapsReservation(Reservation reservation) {
+        for (Reservation other : reservations) {
+            if (other.teacherId.equals(reservation.teacherId) && other.start < reservation.end
+                    && reservation.start < other.end
+                    && (reservation.sessionId == null || !reservation.sessionId.equals(other.sessionId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void afterCommit(Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private synchronized void apply(Change change) {
+        if (changesDuringLoad != null) {
+            changesDuringLoad.add(change);
+        }
+        if (trees != null) {
+            change.apply(trees, teacherOfSession);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (trees == null) {
+            load();
+        }
+    }
+
+    private void load() {
+        synchronized (this) {
+            if (changesDuringLoad != null) {
+                return;
+            }
+            changesDuringLoad = new ArrayList<>();
+        }
+
+        try {
+            Map<Long, IntervalTree> loadedTrees = new HashMap<>();
+            Map<Long, Long> loadedTeachers = new HashMap<>();
+            for (SessionSlot slot : sessionRepository.findAllSlots()) {
+                add(loadedTrees, loadedTeachers, slot.getId(), slot.getTeacherId(), slot.getDate(), slot.getDuration());
+            }
+
+            synchronized (this) {
+                // Replaying is safe whether or not the snapshot already saw a change: each one is idempotent.
+                changesDuringLoad.forEach(change -> change.apply(loadedTrees, loadedTeachers));
+                trees = loadedTrees;
+                teacherOfSession = loadedTeachers;
+            }
+        } finally {
+            synchronized (this) {
+                changesDuringLoad = null;
+            }
+        }
+    }
+
+    private static void removeFrom(Map<Long, IntervalTree> trees, Map<Long, Long> teacherOfSession, Long sessionId) {
+        Long teacherId = teacherOfSession.remove(sessionId);
+        if (teacherId != null) {
+            trees.get(teacherId).remove(sessionId);
+        }
+    }
+
+    private static void add(Map<Long, IntervalTree> trees, Map<Long, Long> teacherOfSession,
+                            Long sessionId, Long teacherId, Date date, Integer duration) {
+        long start = date.getTime();
+        trees.computeIfAbsent(teacherId, id -> new IntervalTree()).put(sessionId, start, end(start, duration));
+        teacherOfSession.put(sessionId, teacherId);
+    }
+
+    private static long end(long start, Integer duration) {
+        int minutes = duration == null ? Session.DEFAULT_DURATION_MINUTES : duration;
+        return start + TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    private static Long teacherIdOf(Session session) {
+        return session.getTeacher() == null ? null : session.getTeacher().getId();
+    }
+
+    private interface Change {
+        void apply(Map<Long, IntervalTree> trees, Map<Long, Long> teacherOfSession);
+    }
+
+    private static final class Reservation {
+        private final Long sessionId;
+
+        private final Long teacherId;
+
+        private final long start;
+
+        private final long end;
+
+        private Reservation(Long sessionId, Long teacherId, long start, long end) {
+            this.sessionId = sessionId;
+            this.teacherId = teacherId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
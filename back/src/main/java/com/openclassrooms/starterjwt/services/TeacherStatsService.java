@@ -0,0 +1,142 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.PeriodStatsDto;
+import com.openclassrooms.starterjwt.dto.TeacherMonthlyStats;
+import com.openclassrooms.starterjwt.dto.TeacherStatsDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Monthly teacher statistics, aggregated in SQL and cached per month, for all teachers at once or
+ * for a single teacher. Months that are over change rarely and are kept for {@code closedPeriodTtlMs}; the current and
+ * future months for {@code openPeriodTtlMs}.
+ */
+@Service
+public class TeacherStatsService {
+    static final int MAX_MONTHS = 36;
+
+    private final TeacherRepository teacherRepository;
+
+    private final Map<YearMonth, CachedPeriod> periods = new ConcurrentHashMap<>();
+
+    private final Map<Long, Map<YearMonth, CachedPeriod>> teacherPeriods = new ConcurrentHashMap<>();
+
+    @Value("${oc.app.teacherStats.closedPeriodTtlMs:3600000}")
+    private long closedPeriodTtlMs;
+
+    @Value("${oc.app.teacherStats.openPeriodTtlMs:60000}")
+    private long openPeriodTtlMs;
+
+    public TeacherStatsService(TeacherRepository teacherRepository) {
+        this.teacherRepository = teacherRepository;
+    }
+
+    public List<TeacherStatsDto> findAll(YearMonth from, YearMonth to) {
+        Map<Long, List<PeriodStatsDto>> byTeacher = new TreeMap<>();
+        for (TeacherMonthlyStats row : rows(periods, from, to, teacherRepository::findMonthlyStats)) {
+            byTeacher.computeIfAbsent(row.getTeacherId(), id -> new ArrayList<>()).add(toDto(row));
+        }
+
+        List<TeacherStatsDto> stats = new ArrayList<>();
+        byTeacher.forEach((teacherId, teacherPeriods) -> stats.add(new TeacherStatsDto(teacherId, teacherPeriods)));
+        return stats;
+    }
+
+    public TeacherStatsDto findByTeacher(Long teacherId, YearMonth from, YearMonth to) {
+        Map<YearMonth, CachedPeriod> cache = teacherPeriods.computeIfAbsent(teacherId, id -> new ConcurrentHashMap<>());
+        List<PeriodStatsDto> stats = new ArrayList<>();
+        for (TeacherMonthlyStats row : rows(cache, from, to,
+                (start, end) -> teacherRepository.findMonthlyStatsByTeacher(teacherId, start, end))) {
+            stats.add(toDto(row));
+        }
+        return new TeacherStatsDto(teacherId, stats);
+    }
+
+    private List<TeacherMonthlyStats> rows(Map<YearMonth, CachedPeriod> cache, YearMonth from, YearMonth to,
+                                           BiFunction<Date, Date, List<TeacherMonthlyStats>> query) {
+        if (from.isAfter(to) || from.plusMonths(MAX_MONTHS).isBefore(to.plusMonths(1))) {
+            throw new BadRequestException();
+        }
+
+        long now = System.currentTimeMillis();
+        YearMonth firstMissing = null;
+        YearMonth lastMissing = null;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            CachedPeriod cached = cache.get(month);
+            if (cached == null || cached.expiresAt <= now) {
+                if (firstMissing == null) {
+                    firstMissing = month;
+                }
+                lastMissing = month;
+            }
+        }
+        if (firstMissing != null) {
+            load(cache, firstMissing, lastMissing, now, query);
+        }
+
+        List<TeacherMonthlyStats> rows = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            CachedPeriod cached = cache.get(month);
+            if (cached != null) {
+                rows.addAll(cached.rows);
+            }
+        }
+        return rows;
+    }
+
+    private void load(Map<YearMonth, CachedPeriod> cache, YearMonth first, YearMonth last, long now,
+                      BiFunction<Date, Date, List<TeacherMonthlyStats>> query) {
+        Map<YearMonth, List<TeacherMonthlyStats>> loaded = new HashMap<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            loaded.put(month, new ArrayList<>());
+        }
+        for (TeacherMonthlyStats row : query.apply(startOf(first), startOf(last.plusMonths(1)))) {
+            loaded.get(YearMonth.of(row.getPeriodYear(), row.getPeriodMonth())).add(row);
+        }
+
+        cache.values().removeIf(cached -> cached.expiresAt <= now);
+        YearMonth current = YearMonth.now();
+        loaded.forEach((month, rows) -> cache.put(month, new CachedPeriod(Collections.unmodifiableList(rows),
+                now + (month.isBefore(current) ? closedPeriodTtlMs : openPeriodTtlMs))));
+    }
+
+    private static Date startOf(YearMonth month) {
+        return Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static PeriodStatsDto toDto(TeacherMonthlyStats row) {
+        long sessions = row.getSessionCount();
+        long participations = row.getParticipations() == null ? 0 : row.getParticipations();
+        Long capacity = row.getCapacity();
+        Double fillRate = capacity == null || capacity == 0 ? null
+                : (row.getBookedSeats() == null ? 0 : row.getBookedSeats()) / (double) capacity;
+
+        return new PeriodStatsDto(YearMonth.of(row.getPeriodYear(), row.getPeriodMonth()).toString(),
+                sessions, participations, sessions == 0 ? null : participations / (double) sessions, fillRate);
+    }
+
+    private static class CachedPeriod {
+        private final List<TeacherMonthlyStats> rows;
+
+        private final long expiresAt;
+
+        CachedPeriod(List<TeacherMonthlyStats> rows, long expiresAt) {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
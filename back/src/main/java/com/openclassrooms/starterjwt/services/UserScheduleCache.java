@@ -0,0 +1,276 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionSlot;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upcoming sessions of recently active users as sorted start/end arrays, so {@code participate} can
+ * reject a session that overlaps one the user already joined with a binary search. A user's schedule
+ * is loaded from PARTICIPATE on first use and patched after each join or leave commits; a load that
+ * a join or leave of the same user commits during is thrown away and read again, since it may miss it.
+ *
+ * <p>The check is not atomic with the PARTICIPATE insert and nothing in the schema forbids overlaps:
+ * two joins of the same user to overlapping sessions that run at the same time can both pass it.
+ */
+@Component
+public class UserScheduleCache {
+    private final SessionRepository sessionRepository;
+
+    private final Map<Long, Schedule> schedules;
+
+    /** Loads in flight per user, guarded by the {@code schedules} lock. */
+    private final Map<Long, Load> loads = new HashMap<>();
+
+    public UserScheduleCache(SessionRepository sessionRepository,
+                             @Value("${oc.app.userSchedule.maxUsers:100000}") int maxUsers) {
+        this.sessionRepository = sessionRepository;
+        this.schedules = new LinkedHashMap<Long, Schedule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Schedule> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public boolean overlaps(Long userId, Session session) {
+        long start = session.getDate().getTime();
+        return scheduleOf(userId).overlaps(start, end(start, session.getDuration()));
+    }
+
+    public void joined(Long userId, Session session) {
+        long start = session.getDate().getTime();
+        long end = end(start, session.getDuration());
+        afterCommit(() -> {
+            synchronized (schedules) {
+                changed(userId);
+                Schedule schedule = schedules.get(userId);
+                if (schedule != null) {
+                    schedules.put(userId, schedule.with(session.getId(), start, end));
+                }
+            }
+        });
+    }
+
+    public void left(Long userId, Long sessionId) {
+        afterCommit(() -> {
+            synchronized (schedules) {
+                changed(userId);
+                Schedule schedule = schedules.get(userId);
+                if (schedule != null) {
+                    schedules.put(userId, schedule.without(sessionId));
+                }
+            }
+        });
+    }
+
+    /** Forgets every cached schedule holding the session, for when its time changes or it is deleted. */
+    public void evictSession(Long sessionId) {
+        afterCommit(() -> {
+            synchronized (schedules) {
+                schedules.values().removeIf(schedule -> schedule.contains(sessionId));
+                loads.values().forEach(load -> load.version++);
+            }
+        });
+    }
+
+    private Schedule scheduleOf(Long userId) {
+        while (true) {
+            Load load;
+            long version;
+            synchronized (schedules) {
+                Schedule schedule = schedules.get(userId);
+                if (schedule != null) {
+                    return schedule;
+                }
+                load = loads.computeIfAbsent(userId, id -> new Load());
+                load.loaders++;
+                version = load.version;
+            }
+
+            // Sessions that started up to a day ago may still be running.
+            Date since = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+            List<SessionSlot> slots;
+            try {
+                slots = sessionRepository.findSlotsByParticipant(userId, since);
+            } catch (RuntimeException e) {
+                synchronized (schedules) {
+                    finished(userId, load);
+                }
+                throw e;
+            }
+
+            Schedule loaded = Schedule.of(slots);
+            synchronized (schedules) {
+                finished(userId, load);
+                if (load.version == version) {
+                    Schedule raced = schedules.putIfAbsent(userId, loaded);
+                    return raced != null ? raced : loaded;
+                }
+            }
+            // A join or leave of the user committed while loading and the rows read may predate it.
+        }
+    }
+
+    private void finished(Long userId, Load load) {
+        if (--load.loaders == 0) {
+            loads.remove(userId);
+        }
+    }
+
+    /** Invalidates the loads of the user in flight; the caller holds the {@code schedules} lock. */
+    private void changed(Long userId) {
+        Load load = loads.get(userId);
+        if (load != null) {
+            load.version++;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long end(long start, Integer duration) {
+        int minutes = duration == null ? Session.DEFAULT_DURATION_MINUTES : duration;
+        return start + TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    /** Guarded by the {@code schedules} lock. */
+    private static final class Load {
+        private int loaders;
+
+        private long version;
+    }
+
+    /**
+     * Immutable; {@code maxEnds[i]} is the latest end among the first {@code i + 1} sessions, which
+     * makes the overlap test a single binary search even when the schedule already overlaps itself.
+     */
+    static final class Schedule {
+        private final long[] sessionIds;
+
+        private final long[] starts;
+
+        private final long[] ends;
+
+        private final long[] maxEnds;
+
+        private Schedule(long[] sessionIds, long[] starts, long[] ends) {
+            this.sessionIds = sessionIds;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        static Schedule of(List<SessionSlot> slots) {
+            long[][] rows = new long[slots.size()][];
+            for (int i = 0; i < rows.length; i++) {
+                SessionSlot slot = slots.get(i);
+                long start = slot.getDate().getTime();
+                rows[i] = new long[]{start, end(start, slot.getDuration()), slot.getId()};
+            }
+            Arrays.sort(rows, (a, b) -> Long.compare(a[0], b[0]));
+
+            long[] sessionIds = new long[rows.length];
+            long[] starts = new long[rows.length];
+            long[] ends = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                starts[i] = rows[i][0];
+                ends[i] = rows[i][1];
+                sessionIds[i] = rows[i][2];
+            }
+            return new Schedule(sessionIds, starts, ends);
+        }
+
+        boolean overlaps(long start, long end) {
+            // Index of the last session starting before the candidate ends.
+            int index = lowerBound(end) - 1;
+            return index >= 0 && maxEnds[index] > start;
+        }
+
+        boolean contains(long sessionId) {
+            for (long id : sessionIds) {
+                if (id == sessionId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        Schedule with(long sessionId, long start, long end) {
+            Schedule schedule = contains(sessionId) ? without(sessionId) : this;
+            int at = schedule.lowerBound(start);
+            return new Schedule(insert(schedule.sessionIds, at, sessionId), insert(schedule.starts, at, start),
+                    insert(schedule.ends, at, end));
+        }
+
+        Schedule without(long sessionId) {
+            for (int i = 0; i < sessionIds.length; i++) {
+                if (sessionIds[i] == sessionId) {
+                    return new Schedule(delete(sessionIds, i), delete(starts, i), delete(ends, i));
+                }
+            }
+            return this;
+        }
+
+        /** First index whose start is not before {@code value}. */
+        private int lowerBound(long value) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static long[] insert(long[] values, int at, long value) {
+            long[] copy = new long[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, at);
+            copy[at] = value;
+            System.arraycopy(values, at, copy, at + 1, values.length - at);
+            return copy;
+        }
+
+        private static long[] delete(long[] values, int at) {
+            long[] copy = new long[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, at);
+            System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+            return copy;
+        }
+    }
+}
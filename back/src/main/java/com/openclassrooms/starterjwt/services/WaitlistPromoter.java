@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.ParticipantLeftEvent;
+import com.openclassrooms.starterjwt.events.SeatHoldReleasedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Promotes waiting users into seats that free up without a participant leaving the session: an
+ * unconfirmed hold, or an earlier skip because the user's schedule overlapped. Runs once the
+ * change committed so the user schedules it checks are up to date, one session per transaction.
+ */
+@Component
+public class WaitlistPromoter {
+    private final SessionService sessionService;
+
+    private final SessionWaitlist waitlist;
+
+    public WaitlistPromoter(SessionService sessionService, SessionWaitlist waitlist) {
+        this.sessionService = sessionService;
+        this.waitlist = waitlist;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatHoldReleased(SeatHoldReleasedEvent event) {
+        this.sessionService.promoteWaiting(event.getSessionId());
+    }
+
+    /** The user who left may have been skipped on the waitlists of sessions overlapping this one. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onParticipantLeft(ParticipantLeftEvent event) {
+        for (Long sessionId : this.waitlist.sessionsOf(event.getUserId())) {
+            this.sessionService.promoteWaiting(sessionId);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.openclassrooms.starterjwt.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Half-open intervals {@code [start, end)} identified by a long id, kept in an AVL tree ordered by
+ * start and augmented with the greatest end of each subtree. Overlap lookups cost O(log n + k) for
+ * k reported intervals. Not thread-safe.
+ */
+public class IntervalTree {
+    private Node root;
+
+    private final Map<Long, Node> byId = new HashMap<>();
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean contains(long id) {
+        return byId.containsKey(id);
+    }
+
+    /** Adds the interval, replacing the one previously stored under the same id. */
+    public void put(long id, long start, long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Empty interval [" + start + ", " + end + ")");
+        }
+        remove(id);
+        Node node = new Node(id, start, end);
+        root = insert(root, node);
+        byId.put(id, node);
+    }
+
+    public boolean remove(long id) {
+        Node node = byId.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node.start, node.id);
+        return true;
+    }
+
+    /** Returns the id of one stored interval overlapping {@code [start, end)} other than {@code excludedId}, or null. */
+    public Long findOverlap(long start, long end, long excludedId) {
+        List<Interval> found = new ArrayList<>(1);
+        collect(root, start, end, excludedId, found, 1);
+        return found.isEmpty() ? null : found.get(0).getId();
+    }
+
+    /** All stored intervals overlapping {@code [start, end)}, ordered by start. */
+    public List<Interval> findOverlaps(long start, long end) {
+        List<Interval> found = new ArrayList<>();
+        collect(root, start, end, null, found, Integer.MAX_VALUE);
+        return found;
+    }
+
+    private static boolean collect(Node node, long start, long end, Long excludedId, List<Interval> found, int limit) {
+        if (node == null || node.maxEnd <= start) {
+            return false;
+        }
+        if (collect(node.left, start, end, excludedId, found, limit)) {
+            return true;
+        }
+        if (node.start >= end) {
+            return false;
+        }
+        if (node.end > start && (excludedId == null || node.id != excludedId)) {
+            found.add(new Interval(node.id, node.start, node.end));
+            if (found.size() >= limit) {
+                return true;
+            }
+        }
+        return collect(node.right, start, end, excludedId, found, limit);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor.start, successor.id);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static class Node {
+        private final long id;
+
+        private final long start;
+
+        private final long end;
+
+        private long maxEnd;
+
+        private int height = 1;
+
+        private Node left;
+
+        private Node right;
+
+        Node(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+
+    public static class Interval {
+        private final long id;
+
+        private final long start;
+
+        private final long end;
+
+        public Interval(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+    }
+}
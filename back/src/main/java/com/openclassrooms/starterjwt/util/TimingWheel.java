@@ -0,0 +1,126 @@
+package com.openclassrooms.starterjwt.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel: a deadline lands in bucket {@code tick % wheelSize} with the number of full
+ * turns left before it is due, so scheduling and cancelling are O(1) and each {@link #advance} only
+ * looks at the buckets of the ticks that elapsed. Any thread may schedule or cancel; advancing is
+ * meant for a single driver thread and is synchronized.
+ */
+public class TimingWheel<T> {
+    private final long tickMs;
+
+    private final Entry<T>[] buckets;
+
+    private final int mask;
+
+    private final long startMs;
+
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+
+    /** Next tick to expire, only touched while advancing. */
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 1) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickMs = tickMs;
+        this.buckets = (Entry<T>[]) new Entry[Math.max(1, size)];
+        this.mask = this.buckets.length - 1;
+        this.startMs = startMs;
+    }
+
+    public Entry<T> schedule(T value, long deadlineMs) {
+        Entry<T> entry = new Entry<>(value, deadlineMs);
+        this.pending.add(entry);
+        return entry;
+    }
+
+    /** Returns the values whose deadline passed by {@code nowMs}, in no particular order. */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long target = (nowMs - startMs) / tickMs;
+        while (this.tick <= target) {
+            transferPending();
+            expireBucket(this.tick, expired);
+            this.tick++;
+        }
+        return expired;
+    }
+
+    private void transferPending() {
+        Entry<T> entry;
+        while ((entry = this.pending.poll()) != null) {
+            if (entry.cancelled) {
+                continue;
+            }
+            // A deadline already in the past fires on the current tick.
+            long due = Math.max(this.tick, ceilDiv(entry.deadlineMs - startMs, tickMs));
+            entry.remainingRounds = (due - this.tick) / this.buckets.length;
+            int index = (int) (due & mask);
+            entry.next = this.buckets[index];
+            this.buckets[index] = entry;
+        }
+    }
+
+    private void expireBucket(long tick, List<T> expired) {
+        int index = (int) (tick & mask);
+        Entry<T> previous = null;
+        Entry<T> entry = this.buckets[index];
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            if (entry.cancelled || entry.remainingRounds <= 0) {
+                if (previous == null) {
+                    this.buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                entry.next = null;
+                if (!entry.cancelled) {
+                    expired.add(entry.value);
+                }
+            } else {
+                entry.remainingRounds--;
+                previous = entry;
+            }
+            entry = next;
+        }
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    public static final class Entry<T> {
+        private final T value;
+
+        private final long deadlineMs;
+
+        private volatile boolean cancelled;
+
+        private long remainingRounds;
+
+        private Entry<T> next;
+
+        private Entry(T value, long deadlineMs) {
+            this.value = value;
+            this.deadlineMs = deadlineMs;
+        }
+
+        /** The entry is unlinked lazily, when the wheel next passes its bucket. */
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+    }
+}
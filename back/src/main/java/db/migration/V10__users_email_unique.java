@@ -0,0 +1,62 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes USERS.email unique, as the entity already assumes. Accounts sharing an email cannot be
+ * merged automatically since each has its own password and participations, so the migration
+ * stops and names them instead; merge or rename them and run it again.
+ */
+public class V10__users_email_unique extends BaseJavaMigration {
+    static final String INDEX_NAME = "uk_users_email";
+
+    private static final int MAX_REPORTED = 20;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (hasIndex(connection)) {
+            return;
+        }
+
+        List<String> duplicates = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT email, COUNT(*) FROM USERS WHERE email IS NOT NULL"
+                     + " GROUP BY email HAVING COUNT(*) > 1 ORDER BY email")) {
+            while (rs.next() && duplicates.size() < MAX_REPORTED) {
+                duplicates.add(rs.getString(1) + " (" + rs.getLong(2) + " accounts)");
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException("USERS.email cannot be made unique, merge the accounts sharing"
+                    + " these emails first: " + String.join(", ", duplicates));
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX " + INDEX_NAME + " ON USERS (email)");
+        }
+    }
+
+    /** Databases migrated before the index got its own version already have it. */
+    private static boolean hasIndex(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesLowerCaseIdentifiers() ? "users" : "USERS";
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+            while (rs.next()) {
+                if (INDEX_NAME.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
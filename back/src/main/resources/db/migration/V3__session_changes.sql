@@ -0,0 +1,8 @@
+CREATE INDEX idx_sessions_updated_at ON SESSIONS (updated_at);
+
+CREATE TABLE SESSION_DELETIONS (
+  session_id INT PRIMARY KEY,
+  deleted_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_session_deletions_deleted_at ON SESSION_DELETIONS (deleted_at);
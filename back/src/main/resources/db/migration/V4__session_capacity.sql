@@ -0,0 +1 @@
+ALTER TABLE SESSIONS ADD COLUMN capacity INT NULL;
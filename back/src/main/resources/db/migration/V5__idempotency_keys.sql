@@ -0,0 +1,10 @@
+CREATE TABLE IDEMPOTENCY_KEYS (
+  idem_key VARCHAR(512) PRIMARY KEY,
+  fingerprint VARCHAR(512) NOT NULL,
+  status INT NULL,
+  content_type VARCHAR(255) NULL,
+  body MEDIUMBLOB NULL,
+  expires_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON IDEMPOTENCY_KEYS (expires_at);
@@ -0,0 +1 @@
+ALTER TABLE SESSIONS ADD COLUMN duration INT NULL;
@@ -0,0 +1,3 @@
+ALTER TABLE SESSIONS ADD COLUMN participant_count INT NOT NULL DEFAULT 0;
+
+UPDATE SESSIONS s SET participant_count = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id);
@@ -0,0 +1,11 @@
+CREATE TABLE SESSION_WAITLIST (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  session_id INT NOT NULL,
+  user_id INT NOT NULL,
+  created_at DATETIME NOT NULL
+);
+
+ALTER TABLE SESSION_WAITLIST ADD FOREIGN KEY (session_id) REFERENCES SESSIONS (id) ON DELETE CASCADE;
+ALTER TABLE SESSION_WAITLIST ADD FOREIGN KEY (user_id) REFERENCES USERS (id) ON DELETE CASCADE;
+CREATE UNIQUE INDEX uk_session_waitlist_session_user ON SESSION_WAITLIST (session_id, user_id);
+CREATE INDEX idx_session_waitlist_session_id ON SESSION_WAITLIST (session_id, id);
@@ -0,0 +1,25 @@
+-- Finished sessions moved out of SESSIONS/PARTICIPATE by the archive job. No foreign keys, so
+-- archiving and deleting users or teachers never have to check the cold rows.
+CREATE TABLE SESSIONS_ARCHIVE (
+  id INT PRIMARY KEY,
+  name VARCHAR(50),
+  description VARCHAR(2000),
+  date TIMESTAMP,
+  teacher_id INT,
+  capacity INT NULL,
+  duration INT NULL,
+  participant_count INT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP NULL,
+  updated_at DATETIME NULL,
+  archived_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_sessions_archive_date ON SESSIONS_ARCHIVE (date);
+
+CREATE TABLE PARTICIPATE_ARCHIVE (
+  session_id INT NOT NULL,
+  user_id INT NOT NULL,
+  PRIMARY KEY (session_id, user_id)
+);
+
+CREATE INDEX idx_participate_archive_user_session ON PARTICIPATE_ARCHIVE (user_id, session_id);
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.UUID;
+
+/**
+ * Gives each test application context its own JCache manager. The caching provider shares one
+ * manager per configuration URI, and the contexts of different test classes each run on their own
+ * H2 database, so with a shared manager one context would read entities cached by another. A
+ * fragment is enough to tell the URIs apart while ehcache.xml, and its region names, are unchanged.
+ */
+@Configuration
+@Profile("test")
+public class CacheIsolationConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer isolatedCacheManager(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.uri:ehcache.xml}") String config) {
+        return properties -> {
+            try {
+                URI uri = new ClassPathResource(config).getURI();
+                properties.put("hibernate.javax.cache.uri",
+                        new URI(uri.getScheme(), uri.getSchemeSpecificPart(), UUID.randomUUID().toString()).toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
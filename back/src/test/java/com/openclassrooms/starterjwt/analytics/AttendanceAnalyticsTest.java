@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import com.openclassrooms.starterjwt.dto.AttendancePeriodDto;
+import com.openclassrooms.starterjwt.dto.TeacherStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AttendanceAnalyticsTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private AttendanceExporter exporter;
+
+    @Autowired
+    private AttendanceAnalytics analytics;
+
+    @Autowired
+    private AttendanceExportProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        properties.setDirectory(directory.toString());
+
+        archiveSession(1, 1L, LocalDateTime.of(2023, 1, 10, 10, 0), 4, 1, 2);
+        archiveSession(2, 2L, LocalDateTime.of(2023, 1, 20, 10, 0), null, 2, 3, 4);
+        archiveSession(3, 1L, LocalDateTime.of(2023, 3, 5, 10, 0), 2, 1, 2);
+    }
+
+    @Test
+    void shouldExportOneDirectoryPerMonth() {
+        assertThat(exporter.exportChangedMonths()).isEqualTo(2);
+
+        assertThat(Files.exists(directory.resolve("month=2023-01").resolve(AttendanceExporter.SESSIONS_FILE))).isTrue();
+        assertThat(Files.exists(directory.resolve("month=2023-03").resolve(AttendanceExporter.PARTICIPATIONS_FILE))).isTrue();
+        assertThat(Files.exists(directory.resolve("month=2023-02"))).isFalse();
+    }
+
+    @Test
+    void shouldOnlyExportMonthsThatChanged() {
+        exporter.exportChangedMonths();
+        assertThat(exporter.exportChangedMonths()).isZero();
+
+        archiveSession(4, 2L, LocalDateTime.of(2023, 3, 25, 10, 0), 10, 3);
+
+        assertThat(exporter.exportChangedMonths()).isEqualTo(1);
+        assertThat(analytics.findMonthly(YearMonth.of(2023, 3), YearMonth.of(2023, 3)))
+                .extracting(AttendancePeriodDto::getSessions).containsExactly(2L);
+    }
+
+    @Test
+    void shouldReadManifestVersionsOncePerExportRun() throws Exception {
+        exporter.exportChangedMonths();
+        assertThat(analytics.findMonthly(YearMonth.of(2023, 1), YearMonth.of(2023, 3))).hasSize(2);
+
+        Files.delete(directory.resolve("month=2023-03").resolve(AttendanceExporter.MANIFEST_FILE));
+
+        assertThat(analytics.findMonthly(YearMonth.of(2023, 1), YearMonth.of(2023, 3))).hasSize(2);
+        assertThat(exporter.exportChangedMonths()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAggregateMonthsFromTheExportedFiles() {
+        exporter.exportChangedMonths();
+
+        List<AttendancePeriodDto> periods = analytics.findMonthly(YearMonth.of(2022, 12), YearMonth.of(2023, 3));
+
+        assertThat(periods).extracting(AttendancePeriodDto::getPeriod).containsExactly("2023-01", "2023-03");
+        AttendancePeriodDto january = periods.get(0);
+        assertThat(january.getSessions()).isEqualTo(2);
+        assertThat(january.getParticipations()).isEqualTo(5);
+        assertThat(january.getDistinctParticipants()).isEqualTo(4);
+        assertThat(january.getAverageAttendance()).isEqualTo(2.5);
+        assertThat(january.getFillRate()).isEqualTo(0.5);
+        assertThat(periods.get(1).getFillRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldAggregatePerTeacher() {
+        exporter.exportChangedMonths();
+
+        List<TeacherStatsDto> stats = analytics.findByTeacher(YearMonth.of(2023, 1), YearMonth.of(2023, 3));
+
+        assertThat(stats).extracting(TeacherStatsDto::getTeacherId).containsExactly(1L, 2L);
+        assertThat(stats.get(0).getPeriods()).hasSize(2);
+        assertThat(stats.get(1).getPeriods().get(0).getFillRate()).isNull();
+    }
+
+    private void archiveSession(long id, Long teacherId, LocalDateTime date, Integer capacity, long... userIds) {
+        jdbcTemplate.update("INSERT INTO SESSIONS_ARCHIVE (id, name, description, date, teacher_id, capacity,"
+                        + " participant_count, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "Archived " + id, "Analytics test", Timestamp.valueOf(date), teacherId, capacity, userIds.length,
+                Timestamp.valueOf(LocalDateTime.now().plusSeconds(id)));
+        for (long userId : userIds) {
+            jdbcTemplate.update("INSERT INTO PARTICIPATE_ARCHIVE (session_id, user_id) VALUES (?, ?)", id, userId);
+        }
+    }
+}
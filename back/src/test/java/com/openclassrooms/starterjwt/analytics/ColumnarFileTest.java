@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackOnlyTheRequestedColumns() throws IOException {
+        Path file = directory.resolve("sessions.col");
+        long[][] columns = {
+                {1, 2, 5, 1_000_000},
+                {0, -3, Long.MAX_VALUE, Long.MIN_VALUE},
+                {7, 7, 7, 7}
+        };
+
+        ColumnarFile.write(file, new String[]{"id", "signed", "constant"}, columns, 4);
+
+        long[][] read = ColumnarFile.read(file, "constant", "signed");
+        assertThat(read[0]).containsExactly(7, 7, 7, 7);
+        assertThat(read[1]).containsExactly(0, -3, Long.MAX_VALUE, Long.MIN_VALUE);
+        assertThat(Files.exists(directory.resolve("sessions.col.tmp"))).isFalse();
+    }
+
+    @Test
+    void shouldOnlyWriteTheGivenNumberOfRows() throws IOException {
+        Path file = directory.resolve("partial.col");
+
+        ColumnarFile.write(file, new String[]{"id"}, new long[][]{{1, 2, 3, 0}}, 3);
+
+        assertThat(ColumnarFile.read(file, "id")[0]).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldRejectUnknownColumns() throws IOException {
+        Path file = directory.resolve("empty.col");
+        ColumnarFile.write(file, new String[]{"id"}, new long[][]{{}}, 0);
+
+        assertThat(ColumnarFile.read(file, "id")[0]).isEmpty();
+        assertThatThrownBy(() -> ColumnarFile.read(file, "user_id")).isInstanceOf(IOException.class);
+    }
+}
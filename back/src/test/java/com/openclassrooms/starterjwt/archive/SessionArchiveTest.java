@@ -0,0 +1,130 @@
+package com.openclassrooms.starterjwt.archive;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.dto.TeacherMonthlyStats;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SessionArchiveTest {
+
+    @Autowired
+    private SessionArchive sessionArchive;
+
+    @Autowired
+    private SessionArchiveProperties properties;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM SESSION_DELETIONS");
+        jdbcTemplate.update("DELETE FROM PARTICIPATE");
+        jdbcTemplate.update("DELETE FROM SESSIONS");
+        jdbcTemplate.update("DELETE FROM USERS");
+        jdbcTemplate.update("DELETE FROM TEACHERS");
+
+        properties.setChunkSize(2);
+        properties.setPauseMs(0);
+
+        jdbcTemplate.update("INSERT INTO USERS (id, email, first_name, last_name, password, admin)"
+                + " VALUES (1, 'archive1@studio.com', 'Archive', 'TEST', 'test1234!', false),"
+                + " (2, 'archive2@studio.com', 'Archive', 'TEST', 'test1234!', false)");
+    }
+
+    @Test
+    void shouldMoveOldSessionsAndParticipationsInChunks() {
+        insertSession(1, "Old 1", 400, 1, 2);
+        insertSession(2, "Old 2", 390, 1);
+        insertSession(3, "Old 3", 380);
+        insertSession(4, "Recent", 10, 2);
+
+        int archived = sessionArchive.archiveBefore(daysAgo(365));
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM SESSIONS", Long.class)).containsExactly(4L);
+        assertThat(count("PARTICIPATE")).isEqualTo(1);
+        assertThat(count("SESSIONS_ARCHIVE")).isEqualTo(3);
+        assertThat(count("PARTICIPATE_ARCHIVE")).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForList("SELECT session_id FROM SESSION_DELETIONS ORDER BY session_id", Long.class))
+                .containsExactly(1L, 2L, 3L);
+
+        List<SessionDto> archivedSessions = sessionArchive.findBetween(daysAgo(500), daysAgo(365));
+        assertThat(archivedSessions).extracting(SessionDto::getName).containsExactly("Old 1", "Old 2", "Old 3");
+        assertThat(archivedSessions.get(0).getUsers()).containsExactly(1L, 2L);
+        assertThat(archivedSessions.get(0).getParticipantCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLeaveRecentSessionsInPlace() {
+        insertSession(1, "Recent", 1, 1);
+
+        assertThat(sessionArchive.archiveBefore(daysAgo(365))).isZero();
+        assertThat(count("SESSIONS")).isEqualTo(1);
+        assertThat(count("SESSIONS_ARCHIVE")).isZero();
+    }
+
+    @Test
+    void shouldKeepArchivedSessionsInPastSessionsAndTeacherStats() {
+        jdbcTemplate.update("INSERT INTO TEACHERS (id, first_name, last_name) VALUES (1, 'Archive', 'TEACHER')");
+        insertSession(1, "Old", 400, 1, 2);
+        insertSession(2, "Last month", 30, 1);
+        jdbcTemplate.update("UPDATE SESSIONS SET teacher_id = 1");
+
+        assertThat(sessionArchive.archiveBefore(daysAgo(365))).isEqualTo(1);
+
+        Page<SessionSummary> past = sessionRepository.findPastByParticipant(1L, new Date(), PageRequest.of(0, 1));
+        assertThat(past.getContent()).extracting(SessionSummary::getName).containsExactly("Last month");
+        assertThat(past.getTotalElements()).isEqualTo(2);
+        assertThat(sessionRepository.findPastByParticipant(1L, new Date(), PageRequest.of(1, 1)).getContent())
+                .extracting(SessionSummary::getName).containsExactly("Old");
+
+        List<TeacherMonthlyStats> stats = teacherRepository.findMonthlyStatsByTeacher(1L, daysAgo(500), new Date());
+        assertThat(stats).extracting(TeacherMonthlyStats::getParticipations).containsExactly(2L, 1L);
+        assertThat(teacherRepository.findMonthlyStats(daysAgo(500), new Date()))
+                .extracting(TeacherMonthlyStats::getSessionCount).containsExactly(1L, 1L);
+    }
+
+    private void insertSession(long id, String name, int daysAgo, long... userIds) {
+        jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, participant_count) VALUES (?, ?, ?, ?, ?)",
+                id, name, "Archive test", new Timestamp(daysAgo(daysAgo).getTime()), userIds.length);
+        for (long userId : userIds) {
+            jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (?, ?)", userId, id);
+        }
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Date daysAgo(int days) {
+        return Timestamp.valueOf(LocalDateTime.now().minusDays(days));
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.controller;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AnalyticsControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setEmail("test1@studio.com");
+        user.setFirstName("Patrick");
+        user.setLastName("BERTRAND");
+        user.setPassword("$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq");
+        user.setAdmin(false);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    @WithMockUser(username = "test1@studio.com", roles = {"USER"})
+    void shouldRefuseTeacherAttendanceToNonAdmin() throws Exception {
+        mockMvc.perform(get("/api/analytics/attendance/teachers"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "test1@studio.com", roles = {"USER"})
+    void shouldReturnTeacherAttendanceToAdmin() throws Exception {
+        user.setAdmin(true);
+        userRepository.save(user);
+
+        mockMvc.perform(get("/api/analytics/attendance/teachers"))
+                .andExpect(status().isOk());
+    }
+}
@@ -1,5 +1,7 @@
 package com.openclassrooms.starterjwt.controller;
 
+import com.jayway.jsonpath.JsonPath;
+import com.openclassrooms.starterjwt.archive.SessionArchive;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
@@ -16,14 +18,18 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,6 +54,9 @@ public class SessionControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionArchive sessionArchive;
+
     private Teacher teacher;
     private User user1;
     private User user2;
@@ -140,6 +149,245 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].id").value(session.getId()));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldIncludeArchivedSessionsOnRequest() throws Exception {
+        session.setDate(Date.from(LocalDate.now().minusYears(2).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        sessionRepository.save(session);
+        sessionArchive.archiveBefore(new Date());
+
+        mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        LocalDate archivedDay = LocalDate.now().minusYears(2);
+        mockMvc.perform(get("/api/session").param("includeArchived", "true")
+                        .param("archivedFrom", archivedDay.minusDays(1).toString())
+                        .param("archivedTo", archivedDay.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Test Session"))
+                .andExpect(jsonPath("$[0].users", hasSize(2)));
+        mockMvc.perform(get("/api/session").param("includeArchived", "true")
+                        .param("archivedFrom", archivedDay.plusDays(1).toString())
+                        .param("archivedTo", archivedDay.plusDays(30).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRequireBoundedRangeForArchivedSessions() throws Exception {
+        mockMvc.perform(get("/api/session").param("includeArchived", "true"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session").param("includeArchived", "true")
+                        .param("archivedFrom", "2020-01-01").param("archivedTo", "2023-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "test1@studio.com", roles = {"USER"})
+    void shouldReturnCompactSessionsForParticipant() throws Exception {
+        mockMvc.perform(get("/api/session").param("compact", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(session.getId()))
+                .andExpect(jsonPath("$[0].teacher_id").value(teacher.getId()))
+                .andExpect(jsonPath("$[0].participantCount").value(2))
+                .andExpect(jsonPath("$[0].isParticipating").value(true))
+                .andExpect(jsonPath("$[0].users").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldReturnCompactSessionsForNonParticipant() throws Exception {
+        mockMvc.perform(get("/api/session").param("compact", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].participantCount").value(2))
+                .andExpect(jsonPath("$[0].isParticipating").value(false));
+    }
+
+    //Attendance report
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldStreamAttendanceReportAsCsv() throws Exception {
+        user3.setAdmin(true);
+        userRepository.save(user3);
+        user1.setFirstName("=Patrick, Jr");
+        userRepository.save(user1);
+
+        MvcResult result = mockMvc.perform(get("/api/session/report.csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1800000L, result.getRequest().getAsyncContext().getTimeout());
+
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("session_id,session_name,session_date,user_id,email,last_name,first_name", lines[0]);
+        assertTrue(csv.contains(user1.getId() + ",test1@studio.com,BERTRAND,\"'=Patrick, Jr\""));
+        assertTrue(csv.contains(user2.getId() + ",test2@studio.com,DUPONT,Marie"));
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldIncludeArchivedSessionsInAttendanceReport() throws Exception {
+        user3.setAdmin(true);
+        userRepository.save(user3);
+        LocalDate archivedDay = LocalDate.now().minusYears(2);
+        session.setDate(Date.from(archivedDay.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        sessionRepository.save(session);
+        sessionArchive.archiveBefore(new Date());
+
+        MvcResult result = mockMvc.perform(get("/api/session/report.csv")
+                        .param("from", archivedDay.toString()).param("to", archivedDay.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith(session.getId() + ",Test Session,"));
+        assertTrue(csv.contains(user2.getId() + ",test2@studio.com,DUPONT,Marie"));
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldRefuseAttendanceReportToNonAdmin() throws Exception {
+        mockMvc.perform(get("/api/session/report.csv"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldRejectInvertedAttendanceReportRange() throws Exception {
+        user3.setAdmin(true);
+        userRepository.save(user3);
+
+        mockMvc.perform(get("/api/session/report.csv").param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //Changes
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnFullCatalogWithoutSyncToken() throws Exception {
+        mockMvc.perform(get("/api/session/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reset").value(true))
+                .andExpect(jsonPath("$.sessions", hasSize(1)))
+                .andExpect(jsonPath("$.sessions[0].id").value(session.getId()))
+                .andExpect(jsonPath("$.deleted", hasSize(0)))
+                .andExpect(jsonPath("$.token").isString());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnOnlyChangesSinceSyncToken() throws Exception {
+        String token = JsonPath.read(mockMvc.perform(get("/api/session/changes"))
+                .andReturn().getResponse().getContentAsString(), "$.token");
+
+        mockMvc.perform(get("/api/session/changes").param("since", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reset").value(false))
+                .andExpect(jsonPath("$.sessions", hasSize(0)))
+                .andExpect(jsonPath("$.deleted", hasSize(0)));
+
+        Thread.sleep(5);
+        Session other = new Session();
+        other.setName("Other Session");
+        other.setDescription("Other description");
+        other.setDate(new Date());
+        other.setTeacher(teacher);
+        other.setUsers(new ArrayList<>());
+        other = sessionRepository.save(other);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/changes").param("since", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", hasSize(2)))
+                .andExpect(jsonPath("$.sessions[?(@.id == " + session.getId() + ")].users[2]").value(user3.getId().intValue()));
+
+        mockMvc.perform(delete("/api/session/" + other.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/changes").param("since", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", hasSize(1)))
+                .andExpect(jsonPath("$.deleted", hasSize(1)))
+                .andExpect(jsonPath("$.deleted[0]").value(other.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnBadRequestWhenSyncTokenInvalid() throws Exception {
+        mockMvc.perform(get("/api/session/changes").param("since", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //Seats
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldOpenSeatCountStream() throws Exception {
+        mockMvc.perform(get("/api/session/" + session.getId() + "/seats").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnNotFoundWhenStreamingSeatsOfNonExistingSession() throws Exception {
+        mockMvc.perform(get("/api/session/753/seats").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+
+    //Participants
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnParticipantsPageByPage() throws Exception {
+        mockMvc.perform(get("/api/session/" + session.getId() + "/participants").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.participantCount").value(2))
+                .andExpect(jsonPath("$.participants", hasSize(1)))
+                .andExpect(jsonPath("$.participants[0].id").value(user1.getId()))
+                .andExpect(jsonPath("$.participants[0].firstName").value("Patrick"))
+                .andExpect(jsonPath("$.participants[0].lastName").value("BERTRAND"))
+                .andExpect(jsonPath("$.nextAfter").value(user1.getId()));
+
+        mockMvc.perform(get("/api/session/" + session.getId() + "/participants")
+                        .param("size", "2")
+                        .param("after", String.valueOf(user1.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.participantCount").value(2))
+                .andExpect(jsonPath("$.participants", hasSize(1)))
+                .andExpect(jsonPath("$.participants[0].id").value(user2.getId()))
+                .andExpect(jsonPath("$.nextAfter").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnNotFoundWhenParticipantsOfNonExistingSession() throws Exception {
+        mockMvc.perform(get("/api/session/753/participants"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnBadRequestWhenParticipantsPageSizeInvalid() throws Exception {
+        mockMvc.perform(get("/api/session/" + session.getId() + "/participants").param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/session/" + session.getId() + "/participants").param("after", "invalid-id"))
+                .andExpect(status().isBadRequest());
+    }
+
     //Create
     @Test
     @WithMockUser(username = "testuser", roles = {"USER"})
@@ -164,6 +412,137 @@ public class SessionControllerIntegrationTest {
     }
 
 
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRejectSessionOverlappingTeacherSchedule() throws Exception {
+        long start = session.getDate().getTime();
+
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson(start + 30 * 60_000L, 45)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson(start + 60 * 60_000L, 45)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duration").value(45));
+
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson(start + 90 * 60_000L, 30)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldFindTeacherConflicts() throws Exception {
+        Session overlapping = new Session();
+        overlapping.setName("Overlapping");
+        overlapping.setDescription("Booked by mistake");
+        overlapping.setDate(new Date(session.getDate().getTime() + 15 * 60_000L));
+        overlapping.setTeacher(teacher);
+        overlapping.setUsers(new ArrayList<>());
+        overlapping = sessionRepository.save(overlapping);
+
+        mockMvc.perform(get("/api/session/conflicts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].teacherId").value(teacher.getId()))
+                .andExpect(jsonPath("$[0].sessionId").value(session.getId()))
+                .andExpect(jsonPath("$[0].conflictingSessionId").value(overlapping.getId()));
+
+        mockMvc.perform(get("/api/session/conflicts").param("from", "2020-01-01").param("to", "2020-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRejectInvalidConflictsRange() throws Exception {
+        mockMvc.perform(get("/api/session/conflicts").param("from", "2026-02-01").param("to", "2026-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session/conflicts").param("from", "2026-01-01").param("to", "2027-06-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session/conflicts").param("from", "tomorrow"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRejectParticipationOverlappingUserSchedule() throws Exception {
+        Teacher otherTeacher = new Teacher();
+        otherTeacher.setFirstName("Lea");
+        otherTeacher.setLastName("MARTIN");
+        otherTeacher = teacherRepository.save(otherTeacher);
+
+        Session sameTime = new Session();
+        sameTime.setName("Same time");
+        sameTime.setDescription("Another class at the same time");
+        sameTime.setDate(new Date(session.getDate().getTime() + 30 * 60_000L));
+        sameTime.setTeacher(otherTeacher);
+        sameTime.setUsers(new ArrayList<>());
+        sameTime = sessionRepository.save(sameTime);
+
+        mockMvc.perform(post("/api/session/" + sameTime.getId() + "/participate/" + user1.getId()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/session/" + sameTime.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/session/" + sameTime.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnCalendarDays() throws Exception {
+        String today = LocalDate.now().toString();
+        String tomorrow = LocalDate.now().plusDays(1).toString();
+
+        mockMvc.perform(get("/api/session/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].date").value(today))
+                .andExpect(jsonPath("$[0].sessions[0].id").value(session.getId()))
+                .andExpect(jsonPath("$[0].sessions[0].teacher_id").value(teacher.getId()))
+                .andExpect(jsonPath("$[0].sessions[0].users").doesNotExist());
+
+        long tomorrowNoon = LocalDate.now().plusDays(1).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson(tomorrowNoon, 60)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/session/" + session.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/calendar").param("from", today).param("to", tomorrow))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].date").value(tomorrow))
+                .andExpect(jsonPath("$[0].sessions[0].name").value("Back to back"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRejectInvalidCalendarRange() throws Exception {
+        mockMvc.perform(get("/api/session/calendar").param("from", "2026-03-01").param("to", "2026-02-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session/calendar").param("from", "2026-01-01").param("to", "2026-06-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/session/calendar").param("from", "next week"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String sessionJson(long date, int duration) {
+        return String.format("{"
+                + "\"name\":\"Back to back\","
+                + "\"description\":\"Test description\","
+                + "\"date\":%d,"
+                + "\"duration\":%d,"
+                + "\"teacher_id\":%d,"
+                + "\"users\":[]"
+                + "}", date, duration, teacher.getId());
+    }
+
     //Update
     @Test
     @WithMockUser(username = "testuser", roles = {"USER"})
@@ -250,6 +629,30 @@ public class SessionControllerIntegrationTest {
 
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldParticipateAsynchronously() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId())
+                        .header("Prefer", "respond-async"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertEquals(3, sessionRepository.countParticipants(session.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnBadRequestWhenParticipatingInFullSession() throws Exception {
+        session.setCapacity(2);
+        sessionRepository.save(session);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = {"USER"})
     void shouldReturnBadRequestWhenParticipatingWithInvalidId() throws Exception {
@@ -287,6 +690,141 @@ public class SessionControllerIntegrationTest {
     }
 
 
+    //Seat holds
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldHoldThenConfirmSeat() throws Exception {
+        session.setCapacity(3);
+        sessionRepository.save(session);
+
+        MvcResult result = mockMvc.perform(post("/api/session/" + session.getId() + "/hold"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(user3.getId()))
+                .andReturn();
+        String holdId = JsonPath.read(result.getResponse().getContentAsString(), "$.holdId");
+
+        // The held seat is the last one.
+        mockMvc.perform(post("/api/session/" + session.getId() + "/hold"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/hold/" + holdId + "/confirm"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/session/" + session.getId() + "/hold/" + holdId + "/confirm"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(3, sessionRepository.countParticipants(session.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldReleaseHeldSeat() throws Exception {
+        session.setCapacity(3);
+        sessionRepository.save(session);
+
+        MvcResult result = mockMvc.perform(post("/api/session/" + session.getId() + "/hold"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String holdId = JsonPath.read(result.getResponse().getContentAsString(), "$.holdId");
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/hold/" + holdId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user3.getId()))
+                .andExpect(status().isOk());
+    }
+
+
+    //Waitlist
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldPromoteWaitlistHeadWhenSeatIsFreed() throws Exception {
+        session.setCapacity(2);
+        sessionRepository.save(session);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(1));
+        mockMvc.perform(get("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(1))
+                .andExpect(jsonPath("$.length").value(1));
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/participate/" + user1.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(2, sessionRepository.countParticipants(session.getId()));
+        mockMvc.perform(get("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/session/" + session.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", hasSize(2)))
+                .andExpect(jsonPath("$.participantCount").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReturnBadRequestWhenJoiningWaitlistOfSessionWithFreeSeats() throws Exception {
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldLeaveWaitlist() throws Exception {
+        session.setCapacity(2);
+        sessionRepository.save(session);
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRefuseDirectParticipationWhileWaitlistIsNotEmpty() throws Exception {
+        session.setCapacity(2);
+        sessionRepository.save(session);
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user3.getId()))
+                .andExpect(status().isOk());
+
+        session.setCapacity(3);
+        sessionRepository.save(session);
+        User user4 = createUser("test4@studio.com");
+
+        mockMvc.perform(post("/api/session/" + session.getId() + "/participate/" + user4.getId()))
+                .andExpect(status().isBadRequest());
+        assertEquals(2, sessionRepository.countParticipants(session.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "test3@studio.com", roles = {"USER"})
+    void shouldPromoteWaitlistHeadWhenHoldIsReleased() throws Exception {
+        session.setCapacity(3);
+        sessionRepository.save(session);
+        User user4 = createUser("test4@studio.com");
+
+        MvcResult result = mockMvc.perform(post("/api/session/" + session.getId() + "/hold"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String holdId = JsonPath.read(result.getResponse().getContentAsString(), "$.holdId");
+        mockMvc.perform(post("/api/session/" + session.getId() + "/waitlist/" + user4.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/session/" + session.getId() + "/hold/" + holdId))
+                .andExpect(status().isOk());
+
+        assertEquals(3, sessionRepository.countParticipants(session.getId()));
+        mockMvc.perform(get("/api/session/" + session.getId() + "/waitlist/" + user4.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+
 
     //Unparticipate
     @Test
@@ -329,5 +867,13 @@ public class SessionControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
-
-}
\ No newline at end of file
+    private User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Lucie");
+        user.setLastName("MARTIN");
+        user.setPassword("$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq");
+        user.setAdmin(false);
+        return userRepository.save(user);
+    }
+}
@@ -1,23 +1,39 @@
 package com.openclassrooms.starterjwt.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +57,9 @@ class TeacherControllerIntegrationTest {
     @Autowired
     private SessionRepository sessionRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     // Données de test
     private Teacher teacher1;
     private Teacher teacher2;
@@ -116,4 +135,164 @@ class TeacherControllerIntegrationTest {
                  .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                  .andExpect(jsonPath("$.length()").value(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    void testFindAllGzip() throws Exception {
+        MvcResult plain = mockMvc.perform(get("/api/teacher"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+
+        MvcResult gzipped = mockMvc.perform(get("/api/teacher").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            json = StreamUtils.copyToByteArray(in);
+        }
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), json);
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllGzipRefused() throws Exception {
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/teacher"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllRebuiltAfterTeacherChange() throws Exception {
+        mockMvc.perform(get("/api/teacher"))
+                .andExpect(jsonPath("$.length()").value(2));
+
+        teacher1.setFirstName("Johnny");
+        teacherRepository.save(teacher1);
+        Teacher teacher3 = new Teacher();
+        teacher3.setFirstName("Ada");
+        teacher3.setLastName("Byron");
+        teacherRepository.save(teacher3);
+
+        mockMvc.perform(get("/api/teacher"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].firstName").value("Johnny"))
+                .andExpect(jsonPath("$[2].firstName").value("Ada"));
+    }
+
+    @Test
+    @WithMockUser
+    void testFindStats() throws Exception {
+        createStatsSessions();
+
+        mockMvc.perform(get("/api/teacher/" + teacher1.getId() + "/stats")
+                        .param("from", "2024-01")
+                        .param("to", "2024-06"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.teacherId").value(teacher1.getId()))
+                .andExpect(jsonPath("$.periods.length()").value(1))
+                .andExpect(jsonPath("$.periods[0].period").value("2024-03"))
+                .andExpect(jsonPath("$.periods[0].sessions").value(2))
+                .andExpect(jsonPath("$.periods[0].participations").value(3))
+                .andExpect(jsonPath("$.periods[0].averageAttendance").value(1.5))
+                .andExpect(jsonPath("$.periods[0].fillRate").value(0.2));
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllStats() throws Exception {
+        createStatsSessions();
+
+        mockMvc.perform(get("/api/teacher/stats")
+                        .param("from", "2024-01")
+                        .param("to", "2024-06"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].teacherId").value(teacher1.getId()))
+                .andExpect(jsonPath("$[1].teacherId").value(teacher2.getId()))
+                .andExpect(jsonPath("$[1].periods[0].period").value("2024-04"))
+                .andExpect(jsonPath("$[1].periods[0].participations").value(0))
+                .andExpect(jsonPath("$[1].periods[0].fillRate").value(0.0));
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllStatsIgnoresSessionsWithoutTeacher() throws Exception {
+        createStatsSessions();
+        createSession(null, LocalDate.of(2024, 3, 10), 5, Collections.emptyList());
+
+        mockMvc.perform(get("/api/teacher/stats")
+                        .param("from", "2024-01")
+                        .param("to", "2024-06"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].teacherId").value(teacher1.getId()))
+                .andExpect(jsonPath("$[0].periods[0].sessions").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void testFindStatsNotFound() throws Exception {
+        mockMvc.perform(get("/api/teacher/723/stats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void testFindStatsInvalidRange() throws Exception {
+        mockMvc.perform(get("/api/teacher/stats").param("from", "2024-13"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/teacher/stats").param("from", "2024-06").param("to", "2024-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/teacher/invalid-id/stats"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void createStatsSessions() {
+        User alice = createUser("alice@studio.com");
+        User bob = createUser("bob@studio.com");
+
+        createSession(teacher1, LocalDate.of(2024, 3, 4), 10, Arrays.asList(alice, bob));
+        createSession(teacher1, LocalDate.of(2024, 3, 18), null, Collections.singletonList(alice));
+        createSession(teacher2, LocalDate.of(2024, 4, 2), 8, Collections.emptyList());
+        createSession(teacher2, LocalDate.of(2024, 9, 2), 8, Collections.singletonList(bob));
+    }
+
+    private User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPassword("password");
+        user.setAdmin(false);
+        return userRepository.save(user);
+    }
+
+    private void createSession(Teacher teacher, LocalDate date, Integer capacity, List<User> participants) {
+        Session session = new Session();
+        session.setName("Yoga " + date);
+        session.setDescription("Session of " + date);
+        session.setDate(Date.from(date.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant()));
+        session.setCapacity(capacity);
+        session.setTeacher(teacher);
+        session.setUsers(new ArrayList<>(participants));
+        sessionRepository.save(session);
+    }
+}
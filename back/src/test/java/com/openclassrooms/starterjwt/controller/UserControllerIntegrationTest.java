@@ -1,7 +1,11 @@
 package com.openclassrooms.starterjwt.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +20,12 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -40,6 +50,12 @@ class UserControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
 
     private User testUser1;
     private User testUser2;
@@ -107,6 +123,117 @@ class UserControllerIntegrationTest {
                  .andExpect(status().isBadRequest());
     }
 
+    // Sessions of a user
+
+    @Test
+    @WithMockUser(username = userName)
+    void shouldFindUpcomingSessionsOfUser() throws Exception {
+        Teacher teacher = createTeacher();
+        Session later = createSession("Later", 10, teacher, testUser1);
+        Session sooner = createSession("Sooner", 2, teacher, testUser1);
+        createSession("Other user", 5, teacher, testUser2);
+        createSession("Past", -3, teacher, testUser1);
+
+        mockMvc.perform(get("/api/user/" + testUser1.getId() + "/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(sooner.getId()))
+                .andExpect(jsonPath("$.content[0].name").value("Sooner"))
+                .andExpect(jsonPath("$.content[0].teacher_id").value(teacher.getId()))
+                .andExpect(jsonPath("$.content[1].id").value(later.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = userName)
+    void shouldFindPastSessionsOfUserPaged() throws Exception {
+        Teacher teacher = createTeacher();
+        createSession("Long ago", -10, teacher, testUser1);
+        Session recent = createSession("Recent", -1, teacher, testUser1);
+        createSession("Upcoming", 4, teacher, testUser1);
+
+        mockMvc.perform(get("/api/user/" + testUser1.getId() + "/sessions")
+                        .param("period", "past")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(recent.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser2@studio.com")
+    void shouldRefuseSessionsOfAnotherUser() throws Exception {
+        createSession("Private", 1, createTeacher(), testUser1);
+
+        mockMvc.perform(get("/api/user/" + testUser1.getId() + "/sessions"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "admin@studio.com")
+    void shouldFindSessionsOfAnyUserAsAdmin() throws Exception {
+        Session session = createSession("Supervised", 1, createTeacher(), testUser1);
+
+        mockMvc.perform(get("/api/user/" + testUser1.getId() + "/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(session.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = userName)
+    void shouldFindMySessions() throws Exception {
+        Teacher teacher = createTeacher();
+        Session mine = createSession("Mine", 1, teacher, testUser1);
+        createSession("Not mine", 1, teacher, testUser2);
+
+        mockMvc.perform(get("/api/user/me/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(mine.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "unknown@studio.com")
+    void shouldFindMySessionsNotFound() throws Exception {
+        mockMvc.perform(get("/api/user/me/sessions"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = userName)
+    void shouldFindSessionsInvalidPeriod() throws Exception {
+        mockMvc.perform(get("/api/user/" + testUser1.getId() + "/sessions").param("period", "someday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldFindSessionsInvalidFormat() throws Exception {
+        mockMvc.perform(get("/api/user/invalid-id/sessions"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Teacher createTeacher() {
+        Teacher teacher = new Teacher();
+        teacher.setFirstName("Margot");
+        teacher.setLastName("DELAHAYE");
+        teacher.setCreatedAt(LocalDateTime.now());
+        teacher.setUpdatedAt(LocalDateTime.now());
+        return teacherRepository.save(teacher);
+    }
+
+    private Session createSession(String name, int daysFromNow, Teacher teacher, User participant) {
+        Session session = new Session();
+        session.setName(name);
+        session.setDescription("Description of " + name);
+        session.setDate(Date.from(LocalDate.now().plusDays(daysFromNow).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        session.setTeacher(teacher);
+        session.setUsers(new ArrayList<>(Collections.singletonList(participant)));
+        return sessionRepository.save(session);
+    }
+
 //Delete
     @Test
     @WithMockUser(username = userName, roles = {"USER"})
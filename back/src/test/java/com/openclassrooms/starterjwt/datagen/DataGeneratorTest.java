@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.datagen;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    private DataGeneratorProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM PARTICIPATE");
+        jdbcTemplate.update("DELETE FROM SESSIONS");
+        jdbcTemplate.update("DELETE FROM USERS");
+        jdbcTemplate.update("DELETE FROM TEACHERS");
+
+        properties = new DataGeneratorProperties();
+        properties.setTeachers(3);
+        properties.setUsers(200);
+        properties.setSessions(40);
+        properties.setParticipations(1_500);
+        properties.setBatchSize(64);
+    }
+
+    @Test
+    void shouldFillSchemaWithConfiguredVolumes() {
+        DataGenerator.Result result = new DataGenerator(jdbcTemplate, properties, passwordEncoder, context).generate();
+
+        assertThat(count("TEACHERS")).isEqualTo(3);
+        assertThat(count("USERS")).isEqualTo(200);
+        assertThat(count("SESSIONS")).isEqualTo(40);
+        assertThat(count("PARTICIPATE")).isEqualTo(result.getParticipations());
+        assertThat(result.getParticipations()).isBetween(1_400L, 1_600L);
+    }
+
+    @Test
+    void shouldNotGenerateDuplicateParticipations() {
+        new DataGenerator(jdbcTemplate, properties, passwordEncoder, context).generate();
+
+        Long distinct = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT DISTINCT user_id, session_id FROM PARTICIPATE) p", Long.class);
+        assertThat(distinct).isEqualTo(count("PARTICIPATE"));
+    }
+
+    @Test
+    void shouldSkewParticipationsTowardsPopularSessions() {
+        new DataGenerator(jdbcTemplate, properties, passwordEncoder, context).generate();
+
+        List<Long> perSession = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM PARTICIPATE GROUP BY session_id ORDER BY COUNT(*) DESC", Long.class);
+        assertThat(perSession.get(0)).isGreaterThan(perSession.get(perSession.size() - 1) * 5);
+    }
+
+    @Test
+    void shouldBeDeterministicForAGivenSeed() {
+        DataGenerator.Result first = new DataGenerator(jdbcTemplate, properties, passwordEncoder, context).generate();
+        List<String> firstRun = relativeParticipations(first);
+
+        DataGenerator.Result second = new DataGenerator(jdbcTemplate, properties, passwordEncoder, context).generate();
+        List<String> secondRun = relativeParticipations(second);
+
+        assertThat(second.getUserBase()).isGreaterThan(first.getUserBase());
+        assertThat(secondRun).isEqualTo(firstRun);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private List<String> relativeParticipations(DataGenerator.Result result) {
+        return jdbcTemplate.queryForList(
+                "SELECT CONCAT(user_id - ?, ':', session_id - ?) FROM PARTICIPATE"
+                        + " WHERE session_id >= ? AND session_id < ? ORDER BY session_id, user_id",
+                String.class, result.getUserBase(), result.getSessionBase(), result.getSessionBase(),
+                result.getSessionBase() + properties.getSessions());
+    }
+}
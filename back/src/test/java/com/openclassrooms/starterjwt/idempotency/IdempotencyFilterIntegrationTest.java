@@ -0,0 +1,217 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class IdempotencyFilterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyProperties properties;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Teacher teacher;
+
+    private User user;
+
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        teacher = new Teacher();
+        teacher.setFirstName("George");
+        teacher.setLastName("BERNARD");
+        teacher = teacherRepository.save(teacher);
+
+        user = new User();
+        user.setEmail("test1@studio.com");
+        user.setFirstName("Patrick");
+        user.setLastName("BERTRAND");
+        user.setPassword("$2a$10$Dwn5XvJVcKOSuGBF9zTMuOOGwLEH2Hw5T0NxNjc5JrPRKccJeUAzy");
+        user.setAdmin(false);
+        user = userRepository.save(user);
+
+        session = new Session();
+        session.setName("Test Session");
+        session.setDescription("Test description");
+        session.setDate(new Date());
+        session.setTeacher(teacher);
+        session.setUsers(new ArrayList<>());
+        session = sessionRepository.save(session);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldUseInMemoryStoreByDefault() {
+        assertTrue(idempotencyStore instanceof InMemoryIdempotencyStore);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReplayCreatedSessionForRetriedRequest() throws Exception {
+        String json = sessionJson("Morning flow");
+
+        String first = mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(json)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(json)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(first, true));
+
+        assertEquals(2, sessionRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRejectKeyReusedForAnotherRequest() throws Exception {
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson("Morning flow"))
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(sessionJson("Evening flow"))
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-2"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(2, sessionRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReplayParticipationInsteadOfRejectingDuplicate() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+
+        mockMvc.perform(post(url))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldStoreAndReplayAsynchronousParticipation() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+
+        MvcResult result = mockMvc.perform(post(url).header("Prefer", "respond-async")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-async"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertTrue(idempotencyStore.find("testuser:join-async").get().isCompleted());
+        mockMvc.perform(post(url).header("Prefer", "respond-async")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-async"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertEquals(1, sessionRepository.countParticipants(session.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldScopeKeysToTheCaller() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-2"))
+                .andExpect(status().isOk());
+
+        assertTrue(idempotencyStore.find("testuser:join-2").isPresent());
+        assertFalse(idempotencyStore.find("someone-else:join-2").isPresent());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldKeepCompletedResponseForTheTtlAndNotOnlyTheLease() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-4"))
+                .andExpect(status().isOk());
+
+        Instant expiresAt = idempotencyStore.find("testuser:join-4").get().getExpiresAt();
+        assertTrue(expiresAt.isAfter(Instant.now().plus(properties.getLease())));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldFreeKeyWhoseReservationOutlivedItsLease() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+        String fingerprint = "POST " + url + " 47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=";
+        // What a node that died between reserve and complete leaves behind.
+        idempotencyStore.reserve("testuser:join-5", fingerprint, Instant.now().minusSeconds(1));
+
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-5"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldAnswerConflictWhileOriginalIsInProgress() throws Exception {
+        String url = "/api/session/" + session.getId() + "/participate/" + user.getId();
+        String fingerprint = "POST " + url + " 47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=";
+        idempotencyStore.reserve("testuser:join-3", fingerprint, Instant.now().plusSeconds(60));
+
+        mockMvc.perform(post(url).header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "join-3"))
+                .andExpect(status().isConflict());
+    }
+
+    private String sessionJson(String name) {
+        return String.format("{"
+                + "\"name\":\"%s\","
+                + "\"description\":\"Test description\","
+                + "\"date\":\"2025-12-25T10:30:00\","
+                + "\"teacher_id\":%d,"
+                + "\"users\":[]"
+                + "}", name, teacher.getId());
+    }
+}
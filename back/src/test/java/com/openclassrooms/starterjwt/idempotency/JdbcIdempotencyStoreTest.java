@@ -0,0 +1,60 @@
+package com.openclassrooms.starterjwt.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "oc.app.idempotency.store=jdbc")
+@ActiveProfiles("test")
+class JdbcIdempotencyStoreTest {
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Test
+    void shouldBeSelectedByProperty() {
+        assertThat(store).isInstanceOf(JdbcIdempotencyStore.class);
+    }
+
+    @Test
+    void shouldReserveOnceAndReplayCompletedResponse() {
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        assertThat(store.reserve("user:key-1", "POST /api/session abc", expiresAt)).isTrue();
+        assertThat(store.reserve("user:key-1", "POST /api/session abc", expiresAt)).isFalse();
+        assertThat(store.find("user:key-1")).hasValueSatisfying(entry -> assertThat(entry.isCompleted()).isFalse());
+
+        Instant keptUntil = Instant.now().plusSeconds(3600);
+        store.complete("user:key-1", 200, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8),
+                keptUntil);
+
+        Optional<IdempotentResponse> entry = store.find("user:key-1");
+        assertThat(entry).isPresent();
+        assertThat(entry.get().getStatus()).isEqualTo(200);
+        assertThat(entry.get().getContentType()).isEqualTo("application/json");
+        assertThat(new String(entry.get().getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+        assertThat(entry.get().getFingerprint()).isEqualTo("POST /api/session abc");
+        assertThat(entry.get().getExpiresAt()).isAfter(expiresAt);
+    }
+
+    @Test
+    void shouldFreeReleasedAndExpiredKeys() {
+        assertThat(store.reserve("user:key-2", "fp", Instant.now().plusSeconds(60))).isTrue();
+        store.release("user:key-2");
+        assertThat(store.find("user:key-2")).isEmpty();
+
+        assertThat(store.reserve("user:key-3", "fp", Instant.now().minusSeconds(1))).isTrue();
+        assertThat(store.find("user:key-3")).isEmpty();
+        assertThat(store.reserve("user:key-3", "fp", Instant.now().plusSeconds(60))).isTrue();
+
+        assertThat(store.reserve("user:key-4", "fp", Instant.now().minusSeconds(1))).isTrue();
+        assertThat(store.evictExpired(Instant.now())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyReport {
+    private final Map<SessionLoadTest.Operation, Stats> stats = new EnumMap<>(SessionLoadTest.Operation.class);
+
+    LatencyReport() {
+        for (SessionLoadTest.Operation operation : SessionLoadTest.Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void record(SessionLoadTest.Operation operation, long intendedStartNanos, long actualStartNanos,
+                long endNanos, int status) {
+        Stats s = stats.get(operation);
+        // Measured from the scheduled start, so time spent queued behind a slow response is counted
+        s.corrected.recordValue(endNanos - intendedStartNanos);
+        s.service.recordValue(endNanos - actualStartNanos);
+        if (status >= 500 || status < 0) {
+            s.errors.increment();
+        } else if (status >= 400) {
+            s.rejected.increment();
+        }
+    }
+
+    void reset() {
+        for (Stats s : stats.values()) {
+            s.corrected.reset();
+            s.service.reset();
+            s.errors.reset();
+            s.rejected.reset();
+        }
+    }
+
+    long errors() {
+        return stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+    }
+
+    long count() {
+        return stats.values().stream().mapToLong(s -> s.corrected.getTotalCount()).sum();
+    }
+
+    String format(double elapsedSeconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-14s %8s %8s %6s %9s %9s %9s %9s %9s %12s%n",
+                "operation", "count", "rejected", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms",
+                "p99 svc ms"));
+
+        Histogram all = new Histogram(3);
+        for (Map.Entry<SessionLoadTest.Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            all.add(s.corrected);
+            out.append(line(entry.getKey().name(), s.corrected, s.service, s.rejected.sum(), s.errors.sum(),
+                    elapsedSeconds));
+        }
+        out.append(String.format(Locale.ROOT, "%-14s %8d %8s %6d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                "ALL", all.getTotalCount(), "", errors(), all.getTotalCount() / elapsedSeconds,
+                millis(all, 50.0), millis(all, 99.0), millis(all, 99.9), all.getMaxValue() / 1e6));
+        return out.toString();
+    }
+
+    private static String line(String name, Histogram corrected, Histogram service, long rejected, long errors,
+                               double elapsedSeconds) {
+        return String.format(Locale.ROOT, "%-14s %8d %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                name, corrected.getTotalCount(), rejected, errors, corrected.getTotalCount() / elapsedSeconds,
+                millis(corrected, 50.0), millis(corrected, 99.0), millis(corrected, 99.9),
+                corrected.getMaxValue() / 1e6, millis(service, 99.0));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static class Stats {
+        private final Histogram corrected = new ConcurrentHistogram(3);
+
+        private final Histogram service = new ConcurrentHistogram(3);
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,265 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Open-loop load test, excluded from the default build: mvn -P load-test test
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "oc.app.query-budget.fail-on-exceed=false",
+        "logging.level.com.openclassrooms.starterjwt.monitoring=INFO",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Log4j2
+class SessionLoadTest {
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 5);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 64);
+    private static final int USERS = Integer.getInteger("loadtest.users", 200);
+    private static final int TEACHERS = Integer.getInteger("loadtest.teachers", 10);
+    private static final int SESSIONS = Integer.getInteger("loadtest.sessions", 50);
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+    private static final String PASSWORD = "test1234!";
+
+    enum Operation {
+        LOGIN(5), LIST(25), DETAIL(40), PARTICIPATE(15), UNPARTICIPATE(15);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<User> users = new ArrayList<>();
+
+    private final List<String> tokens = new ArrayList<>();
+
+    private final List<Long> sessionIds = new ArrayList<>();
+
+    @Test
+    void replayTrafficMix() throws Exception {
+        seed();
+
+        LatencyReport report = new LatencyReport();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            run(executor, report, WARMUP_SECONDS, new SplittableRandom(SEED));
+            report.reset();
+
+            long start = System.nanoTime();
+            run(executor, report, DURATION_SECONDS, new SplittableRandom(SEED + 1));
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            log.info("Load test: target {} req/s for {} s, {} threads, {} users, {} sessions\n{}",
+                    RATE, DURATION_SECONDS, THREADS, USERS, SESSIONS, report.format(elapsedSeconds));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(report.count()).isGreaterThan(0);
+        assertThat(report.errors()).isZero();
+    }
+
+    private void run(ExecutorService executor, LatencyReport report, int seconds, SplittableRandom random)
+            throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * seconds;
+        long start = System.nanoTime();
+        long recordedBefore = report.count();
+
+        for (long i = 0; i < total; i++) {
+            long intendedStart = start + i * intervalNanos;
+            Operation operation = pick(random);
+            int userIndex = random.nextInt(users.size());
+            long sessionId = sessionIds.get(random.nextInt(sessionIds.size()));
+
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            executor.execute(() -> {
+                long actualStart = System.nanoTime();
+                int status = call(operation, userIndex, sessionId);
+                report.record(operation, intendedStart, actualStart, System.nanoTime(), status);
+            });
+        }
+
+        // Let queued requests complete before the next phase starts
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (report.count() - recordedBefore < total && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Operation pick(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (Operation operation : Operation.values()) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return Operation.DETAIL;
+    }
+
+    private int call(Operation operation, int userIndex, long sessionId) {
+        User user = users.get(userIndex);
+        String token = tokens.get(userIndex);
+        try {
+            switch (operation) {
+                case LOGIN:
+                    return send("POST", "/api/auth/login", null, loginBody(user));
+                case LIST:
+                    return send("GET", "/api/session", token, null);
+                case DETAIL:
+                    return send("GET", "/api/session/" + sessionId, token, null);
+                case PARTICIPATE:
+                    return send("POST", "/api/session/" + sessionId + "/participate/" + user.getId(), token, null);
+                case UNPARTICIPATE:
+                    return send("DELETE", "/api/session/" + sessionId + "/participate/" + user.getId(), token, null);
+                default:
+                    throw new IllegalStateException(operation.name());
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void seed() throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String password = passwordEncoder.encode(PASSWORD);
+
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < TEACHERS; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setFirstName("Teacher" + i);
+            teacher.setLastName("LOAD");
+            teachers.add(teacher);
+        }
+        teachers = teacherRepository.saveAll(teachers);
+
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("load" + i + "@studio.com");
+            user.setFirstName("User" + i);
+            user.setLastName("LOAD");
+            user.setPassword(password);
+            user.setAdmin(false);
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SESSIONS; i++) {
+            Session session = new Session();
+            session.setName("Load session " + i);
+            session.setDescription("Synthetic session for load testing");
+            session.setDate(new Date(now + TimeUnit.HOURS.toMillis(random.nextInt(24 * 60))));
+            session.setTeacher(teachers.get(random.nextInt(teachers.size())));
+            List<User> roster = new ArrayList<>(users);
+            Collections.shuffle(roster, new java.util.Random(random.nextLong()));
+            session.setUsers(new ArrayList<>(roster.subList(0, random.nextInt(Math.min(20, USERS)))));
+            sessionIds.add(sessionRepository.save(session).getId());
+        }
+
+        for (User user : users) {
+            tokens.add(login(user));
+        }
+    }
+
+    private String login(User user) throws IOException {
+        HttpURLConnection connection = open("POST", "/api/auth/login", null, loginBody(user));
+        try (InputStream in = connection.getInputStream()) {
+            JsonNode body = objectMapper.readTree(in);
+            return body.get("token").asText();
+        }
+    }
+
+    private String loginBody(User user) {
+        return "{\"email\":\"" + user.getEmail() + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private int send(String method, String path, String token, String body) throws IOException {
+        HttpURLConnection connection = open(method, path, token, body);
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[8192];
+                while (stream.read(buffer) != -1) {
+                    // Read the body fully so the connection can be reused
+                }
+            }
+        }
+        return status;
+    }
+
+    private HttpURLConnection open(String method, String path, String token, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return connection;
+    }
+}
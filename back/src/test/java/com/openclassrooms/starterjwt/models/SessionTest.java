@@ -62,12 +62,15 @@ class SessionTest {
         List<User> users = Arrays.asList(user1, user2);
         LocalDateTime now = LocalDateTime.now();
 
-        Session session = new Session(1L, "Pilates", sessionDate, "Cours de pilates", teacher, users, now, now);
+        Session session = new Session(1L, "Pilates", sessionDate, "Cours de pilates", 12, 75, 2, teacher, users, now, now);
 
         assertEquals(1L, session.getId());
         assertEquals("Pilates", session.getName());
         assertEquals(sessionDate, session.getDate());
         assertEquals("Cours de pilates", session.getDescription());
+        assertEquals(12, session.getCapacity());
+        assertEquals(75, session.getDuration());
+        assertEquals(2, session.getParticipantCount());
         assertEquals(teacher, session.getTeacher());
         assertEquals(users, session.getUsers());
         assertEquals(now, session.getCreatedAt());
@@ -0,0 +1,109 @@
+package com.openclassrooms.starterjwt.monitoring;
+
+import com.openclassrooms.starterjwt.exception.QueryBudgetExceededException;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "oc.app.query-budget.endpoints.get[/api/teacher]=0")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class QueryCountFilterIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private QueryBudgetProperties queryBudgetProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Teacher teacher;
+
+    @BeforeEach
+    void setUp() {
+        teacher = new Teacher();
+        teacher.setFirstName("Margot");
+        teacher.setLastName("DELAHAYE");
+        teacher = teacherRepository.save(teacher);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReportStatementCountInServerTimingHeader() throws Exception {
+        mockMvc.perform(get("/api/teacher/" + teacher.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountFilter.SERVER_TIMING_HEADER, containsString("db;dur=")))
+                .andExpect(header().string(QueryCountFilter.SERVER_TIMING_HEADER, containsString("desc=\"1 statements\"")))
+                .andExpect(header().string(QueryCountFilter.SERVER_TIMING_HEADER, containsString("total;dur=")));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldRecordStatementsPerEndpoint() throws Exception {
+        double before = statementsOf("/api/teacher/{id}");
+
+        mockMvc.perform(get("/api/teacher/" + teacher.getId()))
+                .andExpect(status().isOk());
+
+        assertThat(statementsOf("/api/teacher/{id}")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void shouldKeepTheExceptionOfAFailedRequest() {
+        QueryCountFilter filter = new QueryCountFilter(queryBudgetProperties, meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teacher");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/teacher");
+
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            teacherRepository.count();
+            throw new IllegalStateException("handler failed");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("handler failed");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldReportServerTimingOnEmptyResponses() throws Exception {
+        mockMvc.perform(get("/api/teacher/753"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(QueryCountFilter.SERVER_TIMING_HEADER, containsString("db;dur=")));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void shouldFailWhenEndpointExceedsItsBudget() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/api/teacher")))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("GET /api/teacher")
+                .hasMessageContaining("budget of 0");
+    }
+
+    private double statementsOf(String uri) {
+        return meterRegistry.find(QueryCountFilter.STATEMENTS_METRIC).tag("method", "GET").tag("uri", uri)
+                .summaries().stream().mapToDouble(summary -> summary.totalAmount()).sum();
+    }
+}
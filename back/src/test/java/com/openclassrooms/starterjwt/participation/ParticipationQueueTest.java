@@ -0,0 +1,167 @@
+package com.openclassrooms.starterjwt.participation;
+
+import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParticipationQueueTest {
+
+    private SessionService sessionService;
+
+    private ParticipationQueueProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ParticipationQueue queue;
+
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        sessionService = mock(SessionService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ParticipationQueueProperties();
+        properties.setEnabled(true);
+        properties.setCapacity(3);
+        properties.setBatchSize(10);
+        properties.setWriterThreads(1);
+
+        when(sessionService.participateAll(eq(1L), anyList())).thenAnswer(invocation -> {
+            List<Long> userIds = new ArrayList<>(invocation.getArgument(1));
+            batches.add(userIds);
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return userIds.stream()
+                    .map(userId -> userId == 99L ? ParticipationOutcome.FULL : ParticipationOutcome.ACCEPTED)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCommitQueuedIntentsInOneBatch() throws Exception {
+        queue = new ParticipationQueue(sessionService, properties, meterRegistry);
+
+        DeferredResult<ResponseEntity<?>> first = queue.submit(1L, 10L);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        DeferredResult<ResponseEntity<?>> second = queue.submit(1L, 11L);
+        DeferredResult<ResponseEntity<?>> third = queue.submit(1L, 99L);
+        release.countDown();
+
+        assertThat(statusOf(first)).isEqualTo(HttpStatus.OK);
+        assertThat(statusOf(second)).isEqualTo(HttpStatus.OK);
+        assertThat(statusOf(third)).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(batches).containsExactly(Collections.singletonList(10L), Arrays.asList(11L, 99L));
+        assertThat(meterRegistry.summary("participation.queue.batch.size").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSkipIntentsOfTimedOutCallers() throws Exception {
+        queue = new ParticipationQueue(sessionService, properties, meterRegistry);
+
+        DeferredResult<ResponseEntity<?>> first = queue.submit(1L, 10L);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        DeferredResult<ResponseEntity<?>> timedOut = queue.submit(1L, 11L);
+        DeferredResult<ResponseEntity<?>> third = queue.submit(1L, 12L);
+        // What the container does on timeout: answer with the DeferredResult's timeout value.
+        timedOut.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        release.countDown();
+
+        assertThat(statusOf(first)).isEqualTo(HttpStatus.OK);
+        assertThat(statusOf(third)).isEqualTo(HttpStatus.OK);
+        assertThat(statusOf(timedOut)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(batches).containsExactly(Collections.singletonList(10L), Collections.singletonList(12L));
+    }
+
+    @Test
+    void shouldDropLaneOnceDrained() throws Exception {
+        queue = new ParticipationQueue(sessionService, properties, meterRegistry);
+
+        DeferredResult<ResponseEntity<?>> first = queue.submit(1L, 10L);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.activeLanes()).isEqualTo(1);
+        release.countDown();
+        assertThat(statusOf(first)).isEqualTo(HttpStatus.OK);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.activeLanes() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queue.activeLanes()).isZero();
+        assertThat(meterRegistry.get("participation.queue.depth").gauge().value()).isZero();
+
+        assertThat(statusOf(queue.submit(1L, 11L))).isEqualTo(HttpStatus.OK);
+        assertThat(batches).containsExactly(Collections.singletonList(10L), Collections.singletonList(11L));
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        queue = new ParticipationQueue(sessionService, properties, meterRegistry);
+
+        queue.submit(1L, 10L);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long userId = 11L; userId <= 13L; userId++) {
+            queue.submit(1L, userId);
+        }
+        DeferredResult<ResponseEntity<?>> rejected = queue.submit(1L, 14L);
+
+        assertThat(rejected.hasResult()).isTrue();
+        ResponseEntity<?> response = (ResponseEntity<?>) rejected.getResult();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.counter("participation.queue.rejected").count()).isEqualTo(1.0);
+        release.countDown();
+    }
+
+    @Test
+    void shouldApplyInlineWhenDisabled() {
+        properties.setEnabled(false);
+        release.countDown();
+        queue = new ParticipationQueue(sessionService, properties, meterRegistry);
+
+        DeferredResult<ResponseEntity<?>> result = queue.submit(1L, 10L);
+
+        assertThat(result.hasResult()).isTrue();
+        assertThat(((ResponseEntity<?>) result.getResult()).getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(sessionService).participateAll(1L, Collections.singletonList(10L));
+    }
+
+    private HttpStatus statusOf(DeferredResult<ResponseEntity<?>> result) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return ((ResponseEntity<?>) result.getResult()).getStatusCode();
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sessionsForUserShouldUseReverseParticipationIndex() {
+        assertThat(explain("SELECT session_id FROM PARTICIPATE WHERE user_id = 1"))
+                .containsIgnoringCase("idx_participate_user_session");
+    }
+
+    @Test
+    void participationLookupShouldUsePrimaryKey() {
+        assertThat(explain("SELECT 1 FROM PARTICIPATE WHERE session_id = 1 AND user_id = 2"))
+                .containsIgnoringCase("primary_key");
+    }
+
+    @Test
+    void sessionsInDateRangeShouldUseDateIndex() {
+        assertThat(explain("SELECT id FROM SESSIONS WHERE date >= TIMESTAMP '2026-01-01 00:00:00'"))
+                .containsIgnoringCase("idx_sessions_date");
+    }
+
+    @Test
+    void sessionsForTeacherShouldUseTeacherIndex() {
+        assertThat(explain("SELECT id FROM SESSIONS WHERE teacher_id = 1"))
+                .containsIgnoringCase("idx_sessions_teacher_id");
+    }
+
+    @Test
+    void userByEmailShouldUseUniqueIndex() {
+        assertThat(explain("SELECT id FROM USERS WHERE email = 'yoga@studio.com'"))
+                .containsIgnoringCase("uk_users_email");
+    }
+
+    @Test
+    void participationShouldRejectDuplicates() {
+        jdbcTemplate.update("INSERT INTO TEACHERS (first_name, last_name) VALUES ('Margot', 'DELAHAYE')");
+        jdbcTemplate.update("INSERT INTO USERS (first_name, last_name, admin, email, password)"
+                + " VALUES ('Jean', 'GASTON', false, 'duplicate@studio.com', 'password')");
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date) VALUES ('Yoga', 'Flow', CURRENT_TIMESTAMP)");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM USERS WHERE email = 'duplicate@studio.com'", Long.class);
+        Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (?, ?)", userId, sessionId);
+
+        try {
+            assertThatThrownBy(() -> jdbcTemplate.update(
+                    "INSERT INTO PARTICIPATE (user_id, session_id) VALUES (?, ?)", userId, sessionId))
+                    .isInstanceOf(DuplicateKeyException.class);
+        } finally {
+            jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", sessionId);
+            jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", sessionId);
+            jdbcTemplate.update("DELETE FROM USERS WHERE id = ?", userId);
+            jdbcTemplate.update("DELETE FROM TEACHERS");
+        }
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import org.ehcache.config.ResourceType;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldApplyConfiguredRegionLimits() {
+        assertThat(heapEntries("users")).isEqualTo(10000);
+    }
+
+    @Test
+    void shouldServeRepeatedTeacherLookupsFromCache() {
+        Teacher teacher = new Teacher();
+        teacher.setFirstName("Margot");
+        teacher.setLastName("DELAHAYE");
+        teacher = teacherRepository.save(teacher);
+        statistics.clear();
+
+        teacherRepository.findById(teacher.getId());
+        teacherRepository.findById(teacher.getId());
+
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldServeRepeatedUserLookupsFromCache() {
+        User user = new User();
+        user.setEmail("cached@studio.com");
+        user.setFirstName("Jean");
+        user.setLastName("GASTON");
+        user.setPassword("test1234!");
+        user = userRepository.save(user);
+        statistics.clear();
+
+        userRepository.findById(user.getId());
+        userRepository.findById(user.getId());
+
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheTeacherListQuery() {
+        Teacher teacher = new Teacher();
+        teacher.setFirstName("Hélène");
+        teacher.setLastName("THIERCELIN");
+        teacherRepository.save(teacher);
+        statistics.clear();
+
+        teacherRepository.findAll();
+        teacherRepository.findAll();
+
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInvalidateTeacherListOnWrite() {
+        teacherRepository.findAll();
+        int before = teacherRepository.findAll().size();
+
+        Teacher teacher = new Teacher();
+        teacher.setFirstName("Nouveau");
+        teacher.setLastName("PROF");
+        teacherRepository.save(teacher);
+
+        assertThat(teacherRepository.findAll()).hasSize(before + 1);
+    }
+
+    private long heapEntries(String regionName) {
+        Region region = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegion(regionName);
+        JCacheAccessImpl storage = (JCacheAccessImpl) ((DomainDataRegionTemplate) region).getCacheStorageAccess();
+        javax.cache.Cache<?, ?> cache = storage.getUnderlyingCache();
+        return cache.unwrap(org.ehcache.Cache.class).getRuntimeConfiguration()
+                .getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize();
+    }
+}
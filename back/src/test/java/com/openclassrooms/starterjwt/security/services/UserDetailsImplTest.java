@@ -62,6 +62,17 @@ class UserDetailsImplTest {
         assertThat(authorities).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should grant the admin role to admins only")
+    void getAuthorities_shouldGrantAdminRoleToAdmin() {
+        // Act
+        Collection<? extends GrantedAuthority> authorities = adminUserDetails.getAuthorities();
+
+        // Assert
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+                .containsExactly(UserDetailsImpl.ROLE_ADMIN);
+    }
+
     @Test
     @DisplayName("Should return true for isAccountNonExpired")
     void isAccountNonExpired_shouldReturnTrue() {
@@ -0,0 +1,170 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SeatCountDto;
+import com.openclassrooms.starterjwt.events.ParticipationChangedEvent;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatCountHubTest {
+
+    private SessionRepository sessionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SeatCountHub hub;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository = mock(SessionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new SeatCountHub(sessionRepository, meterRegistry, 2, 2, 60000);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void shouldSendCurrentCountOnSubscribe() throws Exception {
+        when(sessionRepository.countParticipants(1L)).thenReturn(4L);
+        RecordingEmitter emitter = new RecordingEmitter(1);
+
+        hub.register(1L, emitter);
+
+        assertThat(emitter.awaitSends()).isTrue();
+        assertThat(emitter.counts()).containsExactly(4L);
+    }
+
+    @Test
+    void shouldCoalesceBurstIntoOneEventPerFlush() throws Exception {
+        when(sessionRepository.countParticipants(1L)).thenReturn(4L, 7L);
+        RecordingEmitter emitter = new RecordingEmitter(2);
+        hub.register(1L, emitter);
+
+        for (int i = 0; i < 3; i++) {
+            hub.onParticipationChanged(new ParticipationChangedEvent(1L));
+        }
+        hub.flush();
+        hub.flush();
+
+        assertThat(emitter.awaitSends()).isTrue();
+        Thread.sleep(50);
+        assertThat(emitter.counts()).containsExactly(4L, 7L);
+    }
+
+    @Test
+    void shouldIgnoreChangesOfSessionsWithoutSubscribers() {
+        hub.onParticipationChanged(new ParticipationChangedEvent(2L));
+        hub.flush();
+
+        assertThat(hub.subscriberCount(2L)).isZero();
+    }
+
+    @Test
+    void shouldDropStaleCountsForSlowSubscriber() throws Exception {
+        when(sessionRepository.countParticipants(1L)).thenReturn(1L, 2L, 3L, 4L, 5L, 6L);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(3, release);
+        hub.register(1L, emitter);
+        assertThat(emitter.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 5; i++) {
+            hub.onParticipationChanged(new ParticipationChangedEvent(1L));
+            hub.flush();
+        }
+        release.countDown();
+
+        assertThat(emitter.awaitSends()).isTrue();
+        Thread.sleep(50);
+        assertThat(emitter.counts()).containsExactly(1L, 5L, 6L);
+        assertThat(meterRegistry.counter("sse.seatcount.dropped").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void shouldRemoveSubscriberWhenSendFails() throws Exception {
+        when(sessionRepository.countParticipants(1L)).thenReturn(4L);
+        BrokenEmitter emitter = new BrokenEmitter();
+
+        hub.register(1L, emitter);
+
+        assertThat(emitter.failed.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(hub.subscriberCount(1L)).isZero();
+    }
+
+    @Test
+    void shouldRejectUnknownSession() {
+        assertThrows(NotFoundException.class, () -> hub.register(9L, new RecordingEmitter(1)));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Long> counts = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch sends;
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        RecordingEmitter(int expectedSends) {
+            this(expectedSends, new CountDownLatch(0));
+        }
+
+        RecordingEmitter(int expectedSends, CountDownLatch release) {
+            this.sends = new CountDownLatch(expectedSends);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Set<DataWithMediaType> parts = builder.build();
+            parts.stream()
+                    .filter(part -> part.getData() instanceof SeatCountDto)
+                    .forEach(part -> counts.add(((SeatCountDto) part.getData()).getParticipantCount()));
+            sends.countDown();
+        }
+
+        boolean awaitSends() throws InterruptedException {
+            return sends.await(5, TimeUnit.SECONDS);
+        }
+
+        List<Long> counts() {
+            return counts;
+        }
+    }
+
+    private static class BrokenEmitter extends SseEmitter {
+        private final CountDownLatch failed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            failed.countDown();
+            throw new IOException("Broken pipe");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.SeatHoldReleasedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SeatHoldsTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void shouldCountHeldSeatsUpToFreeSeats() {
+        SeatHolds seatHolds = new SeatHolds(eventPublisher, 60000, 1000, 8);
+
+        SeatHolds.Hold first = seatHolds.tryHold(1L, 1L, 2);
+        SeatHolds.Hold second = seatHolds.tryHold(1L, 2L, 2);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(seatHolds.tryHold(1L, 3L, 2)).isNull();
+        assertThat(seatHolds.held(1L)).isEqualTo(2);
+        assertThat(seatHolds.held(2L)).isZero();
+
+        assertThat(seatHolds.release(1L, first.getId(), 1L)).isSameAs(first);
+        assertThat(seatHolds.held(1L)).isEqualTo(1);
+        assertThat(seatHolds.claim(1L, second.getId(), 2L)).isSameAs(second);
+        assertThat(seatHolds.held(1L)).isZero();
+        verify(eventPublisher, times(1)).publishEvent(new SeatHoldReleasedEvent(1L));
+    }
+
+    @Test
+    void shouldOnlyLetTheHolderTakeAHold() {
+        SeatHolds seatHolds = new SeatHolds(eventPublisher, 60000, 1000, 8);
+        SeatHolds.Hold hold = seatHolds.tryHold(1L, 1L, null);
+
+        assertThat(seatHolds.release(1L, hold.getId(), 2L)).isNull();
+        assertThat(seatHolds.release(2L, hold.getId(), 1L)).isNull();
+        assertThat(seatHolds.held(1L)).isEqualTo(1);
+        verify(eventPublisher, never()).publishEvent(any());
+
+        assertThat(seatHolds.release(1L, hold.getId(), 1L)).isSameAs(hold);
+        assertThat(seatHolds.release(1L, hold.getId(), 1L)).isNull();
+        assertThat(seatHolds.held(1L)).isZero();
+    }
+
+    @Test
+    void shouldRejectSecondHoldOfSameUser() {
+        SeatHolds seatHolds = new SeatHolds(eventPublisher, 60000, 1000, 8);
+        SeatHolds.Hold hold = seatHolds.tryHold(1L, 1L, 5);
+
+        assertThat(seatHolds.tryHold(1L, 1L, 5)).isNull();
+        assertThat(seatHolds.tryHold(2L, 1L, 5)).isNotNull();
+        assertThat(seatHolds.held(1L)).isEqualTo(1);
+
+        seatHolds.release(1L, hold.getId(), 1L);
+        assertThat(seatHolds.tryHold(1L, 1L, 5)).isNotNull();
+    }
+
+    @Test
+    void shouldNotReserveUserWhenNoSeatIsLeft() {
+        SeatHolds seatHolds = new SeatHolds(eventPublisher, 60000, 1000, 8);
+        assertThat(seatHolds.tryHold(1L, 1L, 0)).isNull();
+
+        assertThat(seatHolds.tryHold(1L, 1L, 1)).isNotNull();
+    }
+
+    @Test
+    void shouldReleaseSeatOfExpiredHold() throws InterruptedException {
+        SeatHolds seatHolds = new SeatHolds(eventPublisher, 5, 1, 8);
+        SeatHolds.Hold hold = seatHolds.tryHold(1L, 1L, 1);
+        assertThat(seatHolds.tryHold(1L, 2L, 1)).isNull();
+
+        Thread.sleep(30);
+        seatHolds.expire();
+
+        assertThat(seatHolds.held(1L)).isZero();
+        verify(eventPublisher).publishEvent(new SeatHoldReleasedEvent(1L));
+        assertThat(seatHolds.claim(1L, hold.getId(), 1L)).isNull();
+        assertThat(seatHolds.tryHold(1L, 1L, 1)).isNotNull();
+    }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.CalendarDayDto;
+import com.openclassrooms.starterjwt.dto.CalendarEntryDto;
+import com.openclassrooms.starterjwt.events.SessionDeletedEvent;
+import com.openclassrooms.starterjwt.events.SessionSavedEvent;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionCalendarTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private SessionCalendar calendar;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        calendar = new SessionCalendar(sessionRepository, 30);
+    }
+
+    @Test
+    void shouldServeWindowFromBuckets() {
+        when(sessionRepository.findCalendarEntries(startOf(today), startOf(today.plusDays(30)))).thenReturn(Arrays.asList(
+                entry(1L, today.plusDays(1), 9),
+                entry(2L, today.plusDays(3), 18),
+                entry(3L, today.plusDays(3), 8)));
+
+        List<CalendarDayDto> week = calendar.find(today, today.plusDays(6));
+        calendar.find(today.plusDays(2), today.plusDays(3));
+
+        assertThat(week).extracting(CalendarDayDto::getDate).containsExactly(today.plusDays(1), today.plusDays(3));
+        assertThat(week.get(1).getSessions()).extracting(CalendarEntryDto::getId).containsExactly(3L, 2L);
+        verify(sessionRepository, times(1)).findCalendarEntries(any(), any());
+    }
+
+    @Test
+    void shouldFollowSessionWrites() {
+        when(sessionRepository.findCalendarEntries(any(), any()))
+                .thenReturn(Collections.singletonList(entry(1L, today.plusDays(1), 9)));
+        calendar.find(today, today);
+
+        calendar.onSessionSaved(new SessionSavedEvent(session(1L, today.plusDays(2), 10)));
+        calendar.onSessionSaved(new SessionSavedEvent(session(2L, today.plusDays(2), 7)));
+        calendar.onSessionSaved(new SessionSavedEvent(session(3L, today.plusDays(40), 7)));
+        calendar.onSessionDeleted(new SessionDeletedEvent(2L));
+
+        List<CalendarDayDto> days = calendar.find(today, today.plusDays(6));
+
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).getDate()).isEqualTo(today.plusDays(2));
+        assertThat(days.get(0).getSessions()).extracting(CalendarEntryDto::getId).containsExactly(1L);
+        assertThat(days.get(0).getSessions().get(0).getTeacher_id()).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldReadDaysOutsideWindowFromDatabase() {
+        when(sessionRepository.findCalendarEntries(startOf(today), startOf(today.plusDays(30))))
+                .thenReturn(Collections.singletonList(entry(1L, today.plusDays(29), 9)));
+        when(sessionRepository.findCalendarEntries(startOf(today.minusDays(2)), startOf(today)))
+                .thenReturn(Collections.singletonList(entry(2L, today.minusDays(1), 9)));
+        when(sessionRepository.findCalendarEntries(startOf(today.plusDays(30)), startOf(today.plusDays(32))))
+                .thenReturn(Collections.singletonList(entry(3L, today.plusDays(31), 9)));
+
+        assertThat(calendar.find(today.minusDays(2), today.plusDays(31)))
+                .extracting(CalendarDayDto::getDate)
+                .containsExactly(today.minusDays(1), today.plusDays(29), today.plusDays(31));
+    }
+
+    private static CalendarEntryDto entry(Long id, LocalDate day, int hour) {
+        return new CalendarEntryDto(id, "Session " + id, at(day, hour), 60, 5L);
+    }
+
+    private static Session session(Long id, LocalDate day, int hour) {
+        Session session = new Session();
+        session.setId(id);
+        session.setName("Session " + id);
+        session.setDate(at(day, hour));
+        session.setTeacher(new Teacher().setId(5L));
+        return session;
+    }
+
+    private static Date at(LocalDate day, int hour) {
+        return Date.from(day.atTime(hour, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date startOf(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,8 +1,19 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSeats;
+import com.openclassrooms.starterjwt.events.ParticipationChangedEvent;
+import com.openclassrooms.starterjwt.events.SessionDeletedEvent;
+import com.openclassrooms.starterjwt.events.SessionSavedEvent;
+import com.openclassrooms.starterjwt.events.WaitlistPromotedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.participation.ParticipationOutcome;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -10,12 +21,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,6 +47,30 @@ public class SessionServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    SessionDeletionRepository sessionDeletionRepository;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    TeacherScheduleIndex teacherSchedule;
+
+    @Mock
+    UserScheduleCache userSchedules;
+
+    @Mock
+    SessionCalendar sessionCalendar;
+
+    @Mock
+    SessionWaitlist waitlist;
+
+    @Mock
+    SeatHolds seatHolds;
+
+    @Mock
+    SessionMapper sessionMapper;
+
     @InjectMocks
     SessionService sessionService;
 
@@ -65,6 +107,36 @@ public class SessionServiceTest {
         assertThat(sessionService.create(session)).isEqualTo(session);
     }
 
+    @Test
+    void shouldIndexCreatedSession(){
+        Session session = new Session();
+        session.setName("test session");
+        session.setDate(new Date());
+
+        Session created = new Session();
+        created.setId(7L);
+        when(sessionRepository.save(session)).thenReturn(created);
+
+        sessionService.create(session);
+
+        verify(teacherSchedule).reserve(session);
+        verify(teacherSchedule).put(created);
+        verify(eventPublisher).publishEvent(new SessionSavedEvent(created));
+    }
+
+    @Test
+    void shouldNotSaveSessionWhenTeacherIsBusy(){
+        Session session = new Session();
+        session.setName("test session");
+        session.setDate(new Date());
+        doThrow(new BadRequestException()).when(teacherSchedule).reserve(session);
+
+        assertThrows(BadRequestException.class, () -> sessionService.update(1L, session));
+
+        verify(sessionRepository, never()).save(any());
+        verify(teacherSchedule, never()).put(any());
+    }
+
     @Test
     void shouldDeleteSession(){
         sessionService.delete(1L);
@@ -72,6 +144,16 @@ public class SessionServiceTest {
         verify(sessionRepository).deleteById(1L);
     }
 
+    @Test
+    void shouldRecordTombstoneOnDelete(){
+        sessionService.delete(1L);
+
+        verify(sessionDeletionRepository).save(argThat(deletion -> deletion.getSessionId().equals(1L)
+                && deletion.getDeletedAt() != null));
+        verify(teacherSchedule).remove(1L);
+        verify(eventPublisher).publishEvent(new SessionDeletedEvent(1L));
+    }
+
     @Test
     void shouldReturnArrayOfSession(){
         Teacher teacher = new Teacher();
@@ -147,6 +229,21 @@ public class SessionServiceTest {
         assertThat(sessionFetched).isEqualTo(session);
     }
 
+    @Test
+    void shouldShareMappedSessionInsteadOfEntity() {
+        Session session = new Session();
+        session.setId(1L);
+        SessionDto dto = new SessionDto();
+        dto.setId(1L);
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(sessionMapper.toDto(session)).thenReturn(dto);
+        when(sessionRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat(sessionService.getDtoById(1L)).isSameAs(dto);
+        assertThat(sessionService.getDtoById(2L)).isNull();
+    }
+
     @Test
     void shouldUpdateSession(){
         Teacher teacher = new Teacher();
@@ -236,10 +333,13 @@ public class SessionServiceTest {
         when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
         when(userRepository.findById(3L)).thenReturn(Optional.of(u3));
         when(sessionRepository.save(sessionUpdated)).thenReturn(sessionUpdated);
+        when(sessionRepository.takeSeat(1L, 0)).thenReturn(1);
 
         sessionService.participate(1L, 3L);
 
         verify(sessionRepository).save(sessionUpdated);
+        verify(userSchedules).joined(3L, session);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(1L));
     }
 
     @Test
@@ -301,7 +401,286 @@ public class SessionServiceTest {
         sessionService.noLongerParticipate(1L, 3L);
 
         verify(sessionRepository).save(sessionUpdated);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(1L));
+    }
+
+    @Test
+    void shouldRejectParticipationWhenSessionFull(){
+        User u1 = new User();
+        u1.setId(1L);
+        User u2 = new User();
+        u2.setId(2L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>(Collections.singletonList(u1)));
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(u2));
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 2L));
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldRejectParticipationWhenLastSeatWasTakenConcurrently(){
+        User u2 = new User();
+        u2.setId(2L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(u2));
+        when(sessionRepository.takeSeat(1L, 0)).thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 2L));
+        verify(sessionRepository, never()).save(any());
+        verify(userSchedules, never()).joined(any(), any());
+    }
+
+    @Test
+    void shouldReportFullWhenBatchSeatWasTakenConcurrently(){
+        User u1 = new User();
+        u1.setId(1L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>());
+
+        List<Long> userIds = Collections.singletonList(1L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findAllById(userIds)).thenReturn(Collections.singletonList(u1));
+        when(sessionRepository.takeSeat(1L, 0)).thenReturn(0);
+
+        assertThat(sessionService.participateAll(1L, userIds)).containsExactly(ParticipationOutcome.FULL);
+        assertThat(session.getUsers()).isEmpty();
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldRejectParticipationOverlappingUserSchedule(){
+        User u1 = new User();
+        u1.setId(1L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setDate(new Date());
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
+        when(userSchedules.overlaps(1L, session)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
+        verify(sessionRepository, never()).save(any());
+        verify(userSchedules, never()).joined(any(), any());
+    }
+
+    @Test
+    void shouldApplyParticipationBatchWithinCapacity(){
+        User u1 = new User();
+        u1.setId(1L);
+        User u2 = new User();
+        u2.setId(2L);
+        User u3 = new User();
+        u3.setId(3L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(2);
+        session.setUsers(new ArrayList<>(Collections.singletonList(u1)));
+
+        List<Long> userIds = Arrays.asList(1L, 2L, 2L, 3L, 4L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findAllById(userIds)).thenReturn(Arrays.asList(u1, u2, u3));
+        when(sessionRepository.takeSeat(1L, 0)).thenReturn(1);
+
+        List<ParticipationOutcome> outcomes = sessionService.participateAll(1L, userIds);
+
+        assertThat(outcomes).containsExactly(ParticipationOutcome.DUPLICATE, ParticipationOutcome.ACCEPTED,
+                ParticipationOutcome.DUPLICATE, ParticipationOutcome.FULL, ParticipationOutcome.USER_NOT_FOUND);
+        assertThat(session.getUsers()).containsExactly(u1, u2);
+        verify(sessionRepository).save(session);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(1L));
+    }
+
+    @Test
+    void shouldReportScheduleConflictInBatch(){
+        User u1 = new User();
+        u1.setId(1L);
+        User u2 = new User();
+        u2.setId(2L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setDate(new Date());
+        session.setUsers(new ArrayList<>());
+
+        List<Long> userIds = Arrays.asList(1L, 2L);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findAllById(userIds)).thenReturn(Arrays.asList(u1, u2));
+        when(userSchedules.overlaps(1L, session)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L, 0)).thenReturn(1);
+
+        assertThat(sessionService.participateAll(1L, userIds))
+                .containsExactly(ParticipationOutcome.SCHEDULE_CONFLICT, ParticipationOutcome.ACCEPTED);
+        assertThat(session.getUsers()).containsExactly(u2);
+        verify(userSchedules).joined(2L, session);
+    }
+
+    @Test
+    void shouldReportMissingSessionForWholeBatch(){
+        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThat(sessionService.participateAll(1L, Arrays.asList(1L, 2L)))
+                .containsExactly(ParticipationOutcome.SESSION_NOT_FOUND, ParticipationOutcome.SESSION_NOT_FOUND);
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldPromoteWaitlistHeadWhenParticipantLeaves(){
+        User u1 = new User();
+        u1.setId(1L);
+        User u2 = new User();
+        u2.setId(2L);
+        User u3 = new User();
+        u3.setId(3L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>(Collections.singletonList(u1)));
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(waitlist.waiting(1L)).thenReturn(Arrays.asList(2L, 3L));
+        when(userSchedules.overlaps(2L, session)).thenReturn(true);
+        when(userRepository.findById(3L)).thenReturn(Optional.of(u3));
+        when(waitlist.remove(1L, 3L)).thenReturn(true);
+
+        sessionService.noLongerParticipate(1L, 1L);
+
+        assertThat(session.getUsers()).containsExactly(u3);
+        verify(waitlist, never()).remove(1L, 2L);
+        verify(sessionRepository).addToParticipantCount(1L, 0);
+        verify(userSchedules).joined(3L, session);
+        verify(eventPublisher).publishEvent(new WaitlistPromotedEvent(1L, 3L));
+    }
+
+    @Test
+    void shouldRefuseDirectJoinWhileWaitlistIsNotEmpty(){
+        User u2 = new User();
+        u2.setId(2L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(2);
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(u2));
+        when(waitlist.length(1L)).thenReturn(1);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 2L));
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldPromoteWaitingUsersIntoFreeSeats(){
+        User u1 = new User();
+        u1.setId(1L);
+        User u2 = new User();
+        u2.setId(2L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(waitlist.length(1L)).thenReturn(2);
+        when(waitlist.waiting(1L)).thenReturn(Arrays.asList(1L, 2L));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
+        when(waitlist.remove(1L, 1L)).thenReturn(true);
+
+        assertThat(sessionService.promoteWaiting(1L)).isEqualTo(1);
+
+        assertThat(session.getUsers()).containsExactly(u1);
+        verify(waitlist, never()).remove(1L, 2L);
+        verify(sessionRepository).addToParticipantCount(1L, 1);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(1L));
     }
 
+    @Test
+    void shouldRejectWaitlistWhenSessionHasFreeSeats(){
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(2);
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.existsById(2L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> sessionService.joinWaitlist(1L, 2L));
+        verify(waitlist, never()).enqueue(any(), any());
+    }
+
+    @Test
+    void shouldCountHeldSeatsAgainstCapacity(){
+        User u1 = new User();
+        u1.setId(1L);
 
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>());
+
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
+        when(seatHolds.held(1L)).thenReturn(1);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldConfirmHoldIntoHeldSeat(){
+        User u1 = new User();
+        u1.setId(1L);
+
+        Session session = new Session();
+        session.setId(1L);
+        session.setCapacity(1);
+        session.setUsers(new ArrayList<>());
+
+        when(seatHolds.claim(1L, "hold", 1L)).thenReturn(new SeatHolds.Hold("hold", 1L, 1L, 0L));
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
+        when(seatHolds.held(1L)).thenReturn(1);
+
+        sessionService.confirmHold(1L, "hold", 1L);
+
+        assertThat(session.getUsers()).containsExactly(u1);
+        verify(sessionRepository).addToParticipantCount(1L, 1);
+    }
+
+    @Test
+    void shouldRejectHoldOfParticipant(){
+        when(sessionRepository.findSeatsById(1L)).thenReturn(Optional.of(mock(SessionSeats.class)));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.existsParticipant(1L, 1L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> sessionService.hold(1L, 1L));
+        verify(seatHolds, never()).tryHold(any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenConfirmingUnknownHold(){
+        assertThrows(NotFoundException.class, () -> sessionService.confirmHold(1L, "expired", 1L));
+        verify(sessionRepository, never()).save(any());
+    }
 }
@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionWaitlistTest {
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    private SessionWaitlist waitlist;
+
+    @BeforeEach
+    void setUp() {
+        waitlist = new SessionWaitlist(waitlistRepository, 2);
+    }
+
+    @Test
+    void shouldPatchLoadedQueueOnRemoval() {
+        when(waitlistRepository.findBySessionIdOrderById(1L)).thenReturn(Arrays.asList(entry(1L, 10L), entry(2L, 11L)));
+        when(waitlistRepository.deleteBySessionIdAndUserId(1L, 10L)).thenReturn(1);
+
+        assertThat(waitlist.positionOf(1L, 11L)).isEqualTo(2);
+        assertThat(waitlist.remove(1L, 10L)).isTrue();
+
+        assertThat(waitlist.waiting(1L)).containsExactly(11L);
+        assertThat(waitlist.positionOf(1L, 11L)).isEqualTo(1);
+        verify(waitlistRepository, times(1)).findBySessionIdOrderById(1L);
+    }
+
+    @Test
+    void shouldDiscardLoadThatARemovalCommittedDuring() {
+        when(waitlistRepository.deleteBySessionIdAndUserId(1L, 10L)).thenReturn(1);
+        when(waitlistRepository.findBySessionIdOrderById(1L))
+                .thenAnswer(invocation -> {
+                    waitlist.remove(1L, 10L);
+                    return Arrays.asList(entry(1L, 10L), entry(2L, 11L));
+                })
+                .thenReturn(Collections.singletonList(entry(2L, 11L)));
+
+        assertThat(waitlist.length(1L)).isEqualTo(1);
+        assertThat(waitlist.waiting(1L)).containsExactly(11L);
+
+        verify(waitlistRepository, times(2)).findBySessionIdOrderById(1L);
+    }
+
+    private static WaitlistEntry entry(Long id, Long userId) {
+        return new WaitlistEntry(id, 1L, userId, LocalDateTime.now());
+    }
+}
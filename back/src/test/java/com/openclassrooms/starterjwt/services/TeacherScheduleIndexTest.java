@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionSlot;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TeacherScheduleIndexTest {
+    private static final long HOUR = 3_600_000L;
+
+    private final long base = System.currentTimeMillis() + 24 * HOUR;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private TeacherScheduleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TeacherScheduleIndex(sessionRepository);
+        ReflectionTestUtils.setField(index, "rejectOverlaps", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldOnlyIndexSessionOnceItsTransactionCommits() {
+        when(sessionRepository.findAllSlots()).thenReturn(Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve(session(1L, base));
+        index.put(session(1L, base));
+        assertThat(index.findConflicts(new Date(base - HOUR), new Date(base + HOUR))).isEmpty();
+        complete(true);
+
+        assertThatThrownBy(() -> index.reserve(session(2L, base))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void shouldForgetRolledBackWrites() {
+        when(sessionRepository.findAllSlots()).thenReturn(Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve(session(1L, base));
+        index.put(session(1L, base));
+        complete(false);
+
+        index.reserve(session(2L, base));
+    }
+
+    @Test
+    void shouldHoldReservedSlotAgainstConcurrentWrites() {
+        when(sessionRepository.findAllSlots()).thenReturn(Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.reserve(session(null, base));
+
+        assertThatThrownBy(() -> index.reserve(session(null, base + HOUR / 2))).isInstanceOf(BadRequestException.class);
+        index.reserve(session(null, base + 2 * HOUR));
+    }
+
+    @Test
+    void shouldKeepChangesCommittedDuringRefresh() {
+        when(sessionRepository.findAllSlots())
+                .thenReturn(Collections.emptyList())
+                .thenAnswer(invocation -> {
+                    index.put(session(1L, base));
+                    return Collections.<SessionSlot>emptyList();
+                });
+        index.findConflicts(new Date(base), new Date(base + HOUR));
+
+        index.refresh();
+
+        assertThatThrownBy(() -> index.reserve(session(2L, base))).isInstanceOf(BadRequestException.class);
+    }
+
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (committed) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(committed
+                ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    private static Session session(Long id, long start) {
+        Teacher teacher = new Teacher();
+        teacher.setId(1L);
+
+        Session session = new Session();
+        session.setId(id);
+        session.setTeacher(teacher);
+        session.setDate(new Date(start));
+        session.setDuration(60);
+        return session;
+    }
+}
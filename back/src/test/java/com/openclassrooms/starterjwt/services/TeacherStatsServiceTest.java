@@ -0,0 +1,125 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.PeriodStatsDto;
+import com.openclassrooms.starterjwt.dto.TeacherMonthlyStats;
+import com.openclassrooms.starterjwt.dto.TeacherStatsDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TeacherStatsServiceTest {
+
+    @Mock
+    private TeacherRepository teacherRepository;
+
+    @InjectMocks
+    private TeacherStatsService teacherStatsService;
+
+    private final YearMonth january = YearMonth.of(2024, 1);
+
+    private final YearMonth february = YearMonth.of(2024, 2);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(teacherStatsService, "closedPeriodTtlMs", 60_000L);
+        ReflectionTestUtils.setField(teacherStatsService, "openPeriodTtlMs", 60_000L);
+    }
+
+    @Test
+    void shouldComputeAveragesAndFillRate() {
+        when(teacherRepository.findMonthlyStats(any(), any())).thenReturn(Arrays.asList(
+                row(1L, january, 4, 30, 40L, 20L),
+                row(2L, january, 2, 5, null, 0L)));
+
+        List<TeacherStatsDto> stats = teacherStatsService.findAll(january, january);
+
+        assertThat(stats).hasSize(2);
+        PeriodStatsDto first = stats.get(0).getPeriods().get(0);
+        assertThat(first.getPeriod()).isEqualTo("2024-01");
+        assertThat(first.getSessions()).isEqualTo(4);
+        assertThat(first.getParticipations()).isEqualTo(30);
+        assertThat(first.getAverageAttendance()).isEqualTo(7.5);
+        assertThat(first.getFillRate()).isEqualTo(0.5);
+        assertThat(stats.get(1).getPeriods().get(0).getFillRate()).isNull();
+    }
+
+    @Test
+    void shouldServeCachedMonthsAndOnlyLoadMissingOnes() {
+        when(teacherRepository.findMonthlyStats(any(), any()))
+                .thenReturn(Collections.singletonList(row(1L, january, 1, 3, null, 0L)))
+                .thenReturn(Collections.singletonList(row(1L, february, 2, 8, null, 0L)));
+
+        teacherStatsService.findAll(january, january);
+        List<TeacherStatsDto> stats = teacherStatsService.findAll(january, february);
+
+        assertThat(stats.get(0).getPeriods()).extracting(PeriodStatsDto::getPeriod).containsExactly("2024-01", "2024-02");
+        verify(teacherRepository).findMonthlyStats(startOf(january), startOf(february));
+        verify(teacherRepository).findMonthlyStats(startOf(february), startOf(february.plusMonths(1)));
+        verify(teacherRepository, times(2)).findMonthlyStats(any(), any());
+    }
+
+    @Test
+    void shouldQueryAndCacheASingleTeacherSeparately() {
+        when(teacherRepository.findMonthlyStatsByTeacher(eq(1L), any(), any()))
+                .thenReturn(Collections.singletonList(row(1L, january, 1, 3, null, 0L)))
+                .thenReturn(Collections.singletonList(row(1L, february, 2, 8, null, 0L)));
+
+        teacherStatsService.findByTeacher(1L, january, january);
+        TeacherStatsDto stats = teacherStatsService.findByTeacher(1L, january, february);
+
+        assertThat(stats.getPeriods()).extracting(PeriodStatsDto::getPeriod).containsExactly("2024-01", "2024-02");
+        verify(teacherRepository).findMonthlyStatsByTeacher(1L, startOf(january), startOf(february));
+        verify(teacherRepository).findMonthlyStatsByTeacher(1L, startOf(february), startOf(february.plusMonths(1)));
+        verify(teacherRepository, never()).findMonthlyStats(any(), any());
+    }
+
+    @Test
+    void shouldRejectInvalidRange() {
+        assertThatThrownBy(() -> teacherStatsService.findAll(february, january))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> teacherStatsService.findAll(january, january.plusMonths(TeacherStatsService.MAX_MONTHS)))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(teacherRepository);
+    }
+
+    private static Date startOf(YearMonth month) {
+        return Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static TeacherMonthlyStats row(Long teacherId, YearMonth month, long sessions, long participations,
+                                           Long capacity, Long bookedSeats) {
+        return new TeacherMonthlyStats() {
+            public Long getTeacherId() { return teacherId; }
+            public Integer getPeriodYear() { return month.getYear(); }
+            public Integer getPeriodMonth() { return month.getMonthValue(); }
+            public Long getSessionCount() { return sessions; }
+            public Long getParticipations() { return participations; }
+            public Long getCapacity() { return capacity; }
+            public Long getBookedSeats() { return bookedSeats; }
+        };
+    }
+}
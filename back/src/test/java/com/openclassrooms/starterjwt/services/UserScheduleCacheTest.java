@@ -0,0 +1,126 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionSlot;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserScheduleCacheTest {
+    private static final long HOUR = 3_600_000L;
+
+    private final long base = System.currentTimeMillis() + 24 * HOUR;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private UserScheduleCache userSchedules;
+
+    @BeforeEach
+    void setUp() {
+        userSchedules = new UserScheduleCache(sessionRepository, 2);
+    }
+
+    @Test
+    void shouldDetectOverlapWithJoinedSessions() {
+        when(sessionRepository.findSlotsByParticipant(eq(1L), any())).thenReturn(Arrays.asList(
+                slot(10L, base + 4 * HOUR, 60),
+                slot(11L, base, 60)));
+
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 30 * 60_000L, 60))).isTrue();
+        assertThat(userSchedules.overlaps(1L, session(20L, base + HOUR, 180))).isFalse();
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 4 * HOUR + 59 * 60_000L, 10))).isTrue();
+        assertThat(userSchedules.overlaps(1L, session(20L, base - HOUR, null))).isFalse();
+
+        verify(sessionRepository, times(1)).findSlotsByParticipant(eq(1L), any());
+    }
+
+    @Test
+    void shouldSeeLongSessionCoveringLaterOnes() {
+        when(sessionRepository.findSlotsByParticipant(eq(1L), any())).thenReturn(Arrays.asList(
+                slot(10L, base, 600),
+                slot(11L, base + HOUR, 30)));
+
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 5 * HOUR, 30))).isTrue();
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 10 * HOUR, 30))).isFalse();
+    }
+
+    @Test
+    void shouldPatchScheduleOnJoinAndLeave() {
+        when(sessionRepository.findSlotsByParticipant(eq(1L), any())).thenReturn(Collections.emptyList());
+        Session morning = session(10L, base, 60);
+
+        assertThat(userSchedules.overlaps(1L, morning)).isFalse();
+        userSchedules.joined(1L, morning);
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 15 * 60_000L, 30))).isTrue();
+
+        userSchedules.left(1L, 10L);
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 15 * 60_000L, 30))).isFalse();
+
+        verify(sessionRepository, times(1)).findSlotsByParticipant(eq(1L), any());
+    }
+
+    @Test
+    void shouldDiscardLoadThatAJoinCommittedDuring() {
+        Session morning = session(10L, base, 60);
+        when(sessionRepository.findSlotsByParticipant(eq(1L), any()))
+                .thenAnswer(invocation -> {
+                    userSchedules.joined(1L, morning);
+                    return Collections.emptyList();
+                })
+                .thenReturn(Collections.singletonList(slot(10L, base, 60)));
+
+        assertThat(userSchedules.overlaps(1L, session(20L, base + 15 * 60_000L, 30))).isTrue();
+        assertThat(userSchedules.overlaps(1L, session(21L, base + 30 * 60_000L, 30))).isTrue();
+
+        verify(sessionRepository, times(2)).findSlotsByParticipant(eq(1L), any());
+    }
+
+    @Test
+    void shouldReloadAfterSessionEvictionOrWhenFull() {
+        when(sessionRepository.findSlotsByParticipant(any(), any()))
+                .thenReturn(Collections.singletonList(slot(10L, base, 60)));
+
+        userSchedules.overlaps(1L, session(20L, base, 60));
+        userSchedules.evictSession(10L);
+        userSchedules.overlaps(1L, session(20L, base, 60));
+        verify(sessionRepository, times(2)).findSlotsByParticipant(eq(1L), any());
+
+        userSchedules.overlaps(2L, session(20L, base, 60));
+        userSchedules.overlaps(3L, session(20L, base, 60));
+        userSchedules.overlaps(1L, session(20L, base, 60));
+        verify(sessionRepository, times(3)).findSlotsByParticipant(eq(1L), any());
+    }
+
+    private static Session session(Long id, long start, Integer duration) {
+        Session session = new Session();
+        session.setId(id);
+        session.setDate(new Date(start));
+        session.setDuration(duration);
+        return session;
+    }
+
+    private static SessionSlot slot(Long id, long start, Integer duration) {
+        return new SessionSlot() {
+            public Long getId() { return id; }
+            public Long getTeacherId() { return 1L; }
+            public Date getDate() { return new Date(start); }
+            public Integer getDuration() { return duration; }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntervalTreeTest {
+
+    @Test
+    void shouldFindOverlapsOfHalfOpenIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1, 10, 20);
+        tree.put(2, 20, 30);
+        tree.put(3, 40, 50);
+
+        assertThat(tree.findOverlap(15, 16, Long.MIN_VALUE)).isEqualTo(1L);
+        assertThat(tree.findOverlap(30, 40, Long.MIN_VALUE)).isNull();
+        assertThat(tree.findOverlap(5, 10, Long.MIN_VALUE)).isNull();
+        assertThat(tree.findOverlap(10, 20, 1)).isNull();
+        assertThat(tree.findOverlaps(19, 41)).extracting(IntervalTree.Interval::getId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void shouldReplaceAndRemoveById() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1, 10, 20);
+        tree.put(1, 100, 120);
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.findOverlap(10, 20, Long.MIN_VALUE)).isNull();
+        assertThat(tree.findOverlap(110, 111, Long.MIN_VALUE)).isEqualTo(1L);
+
+        assertThat(tree.remove(1)).isTrue();
+        assertThat(tree.remove(1)).isFalse();
+        assertThat(tree.findOverlaps(0, Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectEmptyInterval() {
+        assertThatThrownBy(() -> new IntervalTree().put(1, 10, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldMatchBruteForceUnderRandomUpdates() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<Long, long[]> expected = new HashMap<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            long id = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                assertThat(tree.remove(id)).isEqualTo(expected.remove(id) != null);
+            } else {
+                long start = random.nextInt(100_000);
+                long end = start + 1 + random.nextInt(500);
+                tree.put(id, start, end);
+                expected.put(id, new long[]{start, end});
+            }
+
+            long queryStart = random.nextInt(100_000);
+            long queryEnd = queryStart + 1 + random.nextInt(1_000);
+            List<Long> bruteForce = expected.entrySet().stream()
+                    .filter(e -> e.getValue()[0] < queryEnd && queryStart < e.getValue()[1])
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            assertThat(tree.findOverlaps(queryStart, queryEnd).stream().map(IntervalTree.Interval::getId).sorted())
+                    .containsExactlyElementsOf(bruteForce);
+            assertThat(tree.findOverlap(queryStart, queryEnd, Long.MIN_VALUE) != null).isEqualTo(!bruteForce.isEmpty());
+        }
+        assertThat(tree.size()).isEqualTo(expected.size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.openclassrooms.starterjwt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "session-1";
+                })));
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (singleFlight.followers() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("session-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.leaders()).isEqualTo(1);
+        assertThat(singleFlight.followers()).isEqualTo(callers - 1);
+        assertThat(singleFlight.coalescingRatio()).isEqualTo((callers - 1) / (double) callers);
+    }
+
+    @Test
+    void shouldNotCacheCompletedLoads() {
+        SingleFlight<Long, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute(1L, loads::incrementAndGet);
+        singleFlight.execute(1L, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(singleFlight.coalescingRatio()).isZero();
+    }
+
+    @Test
+    void shouldPropagateLoaderFailureAndAllowRetry() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertThat(singleFlight.execute(1L, () -> "session-1")).isEqualTo("session-1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldExpireEntriesOnceTheirDeadlinePassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 500);
+
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly("a");
+        assertThat(wheel.advance(499)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly("b");
+    }
+
+    @Test
+    void shouldWaitFullTurnsForDeadlinesBeyondTheWheel() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.schedule("far", 95);
+
+        assertThat(wheel.advance(90)).isEmpty();
+        assertThat(wheel.advance(100)).containsExactly("far");
+    }
+
+    @Test
+    void shouldNotExpireCancelledEntries() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        TimingWheel.Entry<String> cancelled = wheel.schedule("cancelled", 20);
+        wheel.schedule("kept", 20);
+        wheel.advance(10);
+
+        cancelled.cancel();
+
+        assertThat(wheel.advance(20)).containsExactly("kept");
+    }
+
+    @Test
+    void shouldExpireDeadlinesInThePastOnNextTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 16, 0);
+        wheel.advance(1000);
+
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(i, i * 10);
+        }
+
+        values.addAll(wheel.advance(1000));
+        values.addAll(wheel.advance(1010));
+        assertThat(values).hasSize(100);
+    }
+}